@@ -0,0 +1,23 @@
+package com.myblog.domain;
+
+/**
+ * 一覧に表示する本文の先頭部分
+ */
+public final class PostExcerpt {
+
+    public static final int LENGTH = 200;
+
+    private PostExcerpt() {
+    }
+
+    public static String of(String content) {
+        if (content == null || content.length() <= LENGTH) {
+            return content;
+        }
+        int end = LENGTH;
+        if (Character.isHighSurrogate(content.charAt(end - 1))) {
+            end--;
+        }
+        return content.substring(0, end);
+    }
+}
@@ -0,0 +1,18 @@
+package com.myblog.exception;
+
+/**
+ * status -> 404
+ */
+public class IngestNotFound extends MyBlogException {
+
+    private static final String MESSAGE = "該当する受付番号が存在しません。";
+
+    public IngestNotFound() {
+        super(MESSAGE);
+    }
+
+    @Override
+    public int getStatusCode() {
+        return 404;
+    }
+}
@@ -0,0 +1,18 @@
+package com.myblog.exception;
+
+/**
+ * status -> 503
+ */
+public class IngestQueueFull extends MyBlogException {
+
+    private static final String MESSAGE = "投稿が混み合っています。しばらくしてから再度お試しください。";
+
+    public IngestQueueFull() {
+        super(MESSAGE);
+    }
+
+    @Override
+    public int getStatusCode() {
+        return 503;
+    }
+}
@@ -0,0 +1,36 @@
+package com.myblog.exception;
+
+/**
+ * status -> 400
+ */
+public class InvalidRequest extends MyBlogException {
+
+    private static final String MESSAGE = "不正なリクエストです。";
+
+    // 内容の決まっているエラーは、スタックを持たない 1 つのインスタンスを使い回す
+    public static final InvalidRequest INVALID_CURSOR = shared("after", "不正なカーソルです。");
+    public static final InvalidRequest INVALID_JSON = shared("body", "JSONの形式が正しくありません。");
+    public static final InvalidRequest INVALID_ETAG = shared("If-Match", "不正なETagです。");
+    public static final InvalidRequest INVALID_IDS = shared("ids", "idはカンマ区切りの数値で指定してください。");
+    public static final InvalidRequest NG_TITLE = shared("title", "タイトルに’NG’を含めることはできません。");
+
+    public InvalidRequest() {
+        super(MESSAGE, false);
+    }
+
+    public InvalidRequest(String fieldName, String message) {
+        super(MESSAGE, false);
+        addValidation(fieldName, message);
+    }
+
+    private static InvalidRequest shared(String fieldName, String message) {
+        InvalidRequest invalidRequest = new InvalidRequest(fieldName, message);
+        invalidRequest.freeze();
+        return invalidRequest;
+    }
+
+    @Override
+    public int getStatusCode() {
+        return 400;
+    }
+}
@@ -0,0 +1,45 @@
+package com.myblog.exception;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public abstract class MyBlogException extends RuntimeException {
+
+    // 項目ごとのエラーがない例外が大半なので、最初に追加されるまで作らない
+    private Map<String, String> validation;
+
+    public MyBlogException(String message) {
+        super(message);
+    }
+
+    public MyBlogException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    /**
+     * writableStackTrace = false : 呼び出し位置を追う必要のない 4xx 用。生成コストの大半を占めるスタックの取得を省く
+     */
+    protected MyBlogException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
+
+    public abstract int getStatusCode();
+
+    public Map<String, String> getValidation() {
+        return validation != null ? validation : Map.of();
+    }
+
+    public void addValidation(String fieldName, String message) {
+        if (validation == null) {
+            validation = new HashMap<>();
+        }
+        validation.put(fieldName, message);
+    }
+
+    /**
+     * 使い回すインスタンス用 : 以降の addValidation は UnsupportedOperationException になる
+     */
+    protected final void freeze() {
+        validation = Map.copyOf(getValidation());
+    }
+}
@@ -0,0 +1,18 @@
+package com.myblog.exception;
+
+/**
+ * status -> 409
+ */
+public class PostConflict extends MyBlogException {
+
+    private static final String MESSAGE = "投稿が他のユーザーによって更新されています。";
+
+    public PostConflict() {
+        super(MESSAGE);
+    }
+
+    @Override
+    public int getStatusCode() {
+        return 409;
+    }
+}
@@ -7,8 +7,12 @@ public class PostNotFound extends MyBlogException {
 
     private static final String MESSAGE = "該当する投稿が存在しません。";
 
+    // 存在しない id へのリクエストは多いので、スタックを持たない 1 つのインスタンスを使い回す
+    public static final PostNotFound INSTANCE = new PostNotFound();
+
     public PostNotFound() {
-        super(MESSAGE);
+        super(MESSAGE, false);
+        freeze();
     }
 
     @Override
@@ -0,0 +1,38 @@
+package com.myblog.render;
+
+import com.myblog.domain.PostExcerpt;
+import org.commonmark.node.Node;
+import org.commonmark.parser.Parser;
+import org.commonmark.renderer.html.HtmlRenderer;
+import org.commonmark.renderer.text.TextContentRenderer;
+
+/**
+ * 投稿本文 (Markdown) を書き込み時に一度だけ HTML に描画する
+ * 本文中の HTML はタグとして解釈せずエスケープし、javascript: などのリンクは取り除く
+ */
+public final class PostRenderer {
+
+    // 描画結果が変わる変更 (拡張の追加・サニタイズ規則の変更など) をしたら上げる : 既存の投稿は PostRenderJob が描き直す
+    public static final int VERSION = 1;
+
+    // Parser / Renderer は不変でスレッドセーフ
+    private static final Parser PARSER = Parser.builder().build();
+    private static final HtmlRenderer HTML = HtmlRenderer.builder()
+            .escapeHtml(true)
+            .sanitizeUrls(true)
+            .build();
+    private static final TextContentRenderer TEXT = TextContentRenderer.builder()
+            .stripNewlines(true)
+            .build();
+
+    private PostRenderer() {
+    }
+
+    public static RenderedContent render(String content) {
+        if (content == null) {
+            return new RenderedContent(null, null);
+        }
+        Node document = PARSER.parse(content);
+        return new RenderedContent(HTML.render(document), PostExcerpt.of(TEXT.render(document).strip()));
+    }
+}
@@ -0,0 +1,10 @@
+package com.myblog.render;
+
+/**
+ * 本文を描画した結果
+ *
+ * @param html    表示用の HTML (サニタイズ済み)
+ * @param excerpt 一覧用の抜粋 (Markdown の記法を除いたテキストの先頭)
+ */
+public record RenderedContent(String html, String excerpt) {
+}
@@ -26,7 +26,7 @@ public class PostCreate {
 
     public void validate() {
         if (title.contains("NG")) {
-            throw new InvalidRequest("title", "タイトルに’NG’を含めることはできません。");
+            throw InvalidRequest.NG_TITLE;
         }
     }
 }
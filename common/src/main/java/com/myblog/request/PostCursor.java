@@ -0,0 +1,34 @@
+package com.myblog.request;
+
+import com.myblog.exception.InvalidRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 次ページ取得用の不透明なカーソル
+ */
+public class PostCursor {
+
+    private static final String PREFIX = "p:";
+
+    private PostCursor() {
+    }
+
+    public static String encode(Long postId) {
+        byte[] bytes = (PREFIX + postId).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    public static Long decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!value.startsWith(PREFIX)) {
+                throw new IllegalArgumentException(value);
+            }
+            return Long.parseLong(value.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw InvalidRequest.INVALID_CURSOR;
+        }
+    }
+}
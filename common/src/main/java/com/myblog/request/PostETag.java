@@ -0,0 +1,46 @@
+package com.myblog.request;
+
+import com.myblog.exception.InvalidRequest;
+
+/**
+ * 投稿 1 件の ETag : "{postId}-{version}"
+ */
+public class PostETag {
+
+    private PostETag() {
+    }
+
+    public static String of(Long postId, Long version) {
+        return "\"" + postId + "-" + version + "\"";
+    }
+
+    /**
+     * GET /posts/{postId} の ETag : W/"{postId}-{version}"
+     * 同じバージョンを identity と gzip の 2 通りで返すので、バイト列ではなく内容が同じことを表す弱い ETag にする
+     */
+    public static String weakOf(Long postId, Long version) {
+        return "W/" + of(postId, version);
+    }
+
+    // If-Match : "{postId}-{version}" / W/"{postId}-{version}" (* は無条件)
+    public static Long versionOf(Long postId, String ifMatch) {
+        String etag = ifMatch.trim();
+        if (etag.equals("*")) {
+            return null;
+        }
+        if (etag.startsWith("W/")) {
+            etag = etag.substring(2);
+        }
+        etag = etag.replace("\"", "");
+
+        int separator = etag.lastIndexOf('-');
+        try {
+            if (separator > 0 && Long.parseLong(etag.substring(0, separator)) == postId) {
+                return Long.parseLong(etag.substring(separator + 1));
+            }
+        } catch (NumberFormatException e) {
+            // 下で InvalidRequest にする
+        }
+        throw InvalidRequest.INVALID_ETAG;
+    }
+}
@@ -15,15 +15,23 @@ public class PostEdit {
     @NotBlank(message = "内容を入力してください。")
     private String content;
 
+    // 楽観ロック用 (If-Match ヘッダでも指定できる)
+    private Long version;
+
     @Builder
-    public PostEdit(String title, String content) {
+    public PostEdit(String title, String content, Long version) {
         this.title = title;
         this.content = content;
+        this.version = version;
+    }
+
+    public PostEdit withVersion(Long version) {
+        return new PostEdit(title, content, version);
     }
 
     public void validate() {
         if (title.contains("NG")) {
-            throw new InvalidRequest("title", "タイトルに’NG’を含めることはできません。");
+            throw InvalidRequest.NG_TITLE;
         }
     }
 }
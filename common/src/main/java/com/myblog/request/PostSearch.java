@@ -0,0 +1,55 @@
+package com.myblog.request;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+import static java.lang.Math.*;
+
+@Builder
+@Getter
+@Setter
+public class PostSearch {
+
+    private static final int MAX_SIZE = 2000;
+    private static final int DEFAULT_SIZE = 10;
+    // これより大きいページはページ全体を組み立てず、1 行ずつ書き出す
+    private static final int STREAM_THRESHOLD = 100;
+
+    @Builder.Default
+    private Integer page = 1;
+
+    @Builder.Default
+    private Integer size = DEFAULT_SIZE;
+
+    // keyset pagination : 指定時は offset を使わずに id < cursor で取得する
+    private String after;
+
+    // 全文検索キーワード : 指定時はスコア順に page / size で返す
+    private String q;
+
+    public long getOffset() {
+        return (long)(max(1, page != null ? page : 1) - 1) * getLimit();
+    }
+
+    public int getLimit() {
+        return min(MAX_SIZE, size != null ? size : DEFAULT_SIZE);
+    }
+
+    public boolean isCursorMode() {
+        return after != null && !after.isBlank() && !isKeywordSearch();
+    }
+
+    public boolean isKeywordSearch() {
+        return q != null && !q.isBlank();
+    }
+
+    public boolean isStreaming() {
+        return !isKeywordSearch() && getLimit() > STREAM_THRESHOLD;
+    }
+
+    public Long getAfterId() {
+        return isCursorMode() ? PostCursor.decode(after) : null;
+    }
+
+}
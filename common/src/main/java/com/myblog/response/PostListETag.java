@@ -0,0 +1,25 @@
+package com.myblog.response;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 投稿一覧の ETag : "{件数}-{id と更新日時のハッシュ}"
+ * blocking 版と reactive 版で一覧の型が違うので、id と更新日時の取り出し方を受け取る
+ */
+public class PostListETag {
+
+    private PostListETag() {
+    }
+
+    public static <T> String of(List<T> posts, Function<T, Long> id, Function<T, Instant> updatedAt) {
+        long hash = 1;
+        for (T post : posts) {
+            Instant postUpdatedAt = updatedAt.apply(post);
+            hash = 31 * hash + id.apply(post);
+            hash = 31 * hash + (postUpdatedAt != null ? postUpdatedAt.toEpochMilli() : 0);
+        }
+        return "\"" + posts.size() + "-" + Long.toHexString(hash) + "\"";
+    }
+}
@@ -0,0 +1,138 @@
+package com.myblog.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * 投稿本文の保存形式
+ * <pre>
+ * (先頭が \u0001 以外) : 平文 (圧縮導入前の行・閾値未満の本文)
+ * \u0001D{base64}       : Deflate で圧縮した UTF-8
+ * \u0001R{text}         : 先頭が \u0001 の平文、または閾値以上で圧縮の効かない平文
+ * </pre>
+ * 閾値以上の本文は必ず \u0001 で始まるので、先頭が \u0001 でない閾値以上の行は圧縮導入前のものに限られる
+ * カラムは TEXT のまま使えるよう、圧縮結果は Base64 で保存する
+ */
+public final class ContentCodec {
+
+    public static final String MARKER = "\u0001";
+    private static final char DEFLATE = 'D';
+    private static final char RAW = 'R';
+    private static final int PREFIX_LENGTH = 2;
+
+    private ContentCodec() {
+    }
+
+    /**
+     * threshold 文字以上で、圧縮した方が小さくなる本文だけ圧縮する (圧縮の効かない本文は \u0001R を付けて平文で保存する)
+     */
+    public static String encode(String content, int threshold) {
+        if (content == null || content.length() < threshold) {
+            return escape(content);
+        }
+        byte[] raw = content.getBytes(UTF_8);
+        String encoded = compress(raw);
+        return encoded.length() < raw.length ? encoded : MARKER + RAW + content;
+    }
+
+    public static String decode(String stored) {
+        if (stored == null || !stored.startsWith(MARKER) || stored.length() < PREFIX_LENGTH) {
+            return stored;
+        }
+
+        char format = stored.charAt(1);
+        if (format == RAW) {
+            return stored.substring(PREFIX_LENGTH);
+        }
+        if (format != DEFLATE) {
+            throw new IllegalStateException("unknown content format : " + format);
+        }
+        return new String(inflate(Base64.getDecoder().decode(stored.substring(PREFIX_LENGTH))), UTF_8);
+    }
+
+    public static String compress(byte[] raw) {
+        return MARKER + DEFLATE + Base64.getEncoder().encodeToString(deflate(raw));
+    }
+
+    public static String escape(String content) {
+        if (content != null && content.startsWith(MARKER)) {
+            return MARKER + RAW + content;
+        }
+        return content;
+    }
+
+    public static boolean isCompressed(String stored) {
+        return stored != null && stored.startsWith(MARKER);
+    }
+
+    public static boolean isDeflated(String stored) {
+        return isCompressed(stored) && stored.length() >= PREFIX_LENGTH && stored.charAt(1) == DEFLATE;
+    }
+
+    /**
+     * UTF-8 にした場合のバイト数 (計測のためだけにバイト列を作り直さない)
+     * 対になったサロゲートは 4 バイト、対にならないサロゲートは 3 バイトとして数える
+     */
+    public static int utf8Length(String content) {
+        if (content == null) {
+            return 0;
+        }
+        int length = 0;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < content.length() && Character.isLowSurrogate(content.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("truncated content");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("corrupted content", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.myblog.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 固定の同時接続数で GET を投げ続け、成功したリクエストのスループット (req/s) を返す
+ */
+public class LoadDriver {
+
+    private final int concurrency;
+    private final Duration warmUp;
+    private final Duration duration;
+
+    public LoadDriver(int concurrency, Duration warmUp, Duration duration) {
+        this.concurrency = concurrency;
+        this.warmUp = warmUp;
+        this.duration = duration;
+    }
+
+    public double run(URI uri) throws InterruptedException {
+        return run(() -> uri);
+    }
+
+    /**
+     * リクエストごとに uris から次の URI を取り出す (同時に実行しているリクエストが同じ URI に集まらないようにする)
+     */
+    public double run(Supplier<URI> uris) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        LongAdder completed = new LongAdder();
+        AtomicBoolean measuring = new AtomicBoolean(false);
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            workers.submit(() -> {
+                while (running.get()) {
+                    try {
+                        HttpRequest request = HttpRequest.newBuilder(uris.get()).GET().build();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (measuring.get() && response.statusCode() == 200) {
+                            completed.increment();
+                        }
+                    } catch (Exception e) {
+                        // 失敗したリクエストはカウントしない
+                    }
+                }
+            });
+        }
+
+        Thread.sleep(warmUp.toMillis());
+        measuring.set(true);
+        Thread.sleep(duration.toMillis());
+        measuring.set(false);
+        running.set(false);
+
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+
+        return completed.sum() / (duration.toMillis() / 1000.0);
+    }
+}
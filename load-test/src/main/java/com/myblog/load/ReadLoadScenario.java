@@ -0,0 +1,45 @@
+package com.myblog.load;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * blocking / reactive の読み取り負荷テストで共通のシナリオ
+ * 同じ同時接続数・同じ DB レイテンシで POST_COUNT 件の投稿に GET /posts/{postId} を分散して叩き、結果をそのまま比較できるようにする
+ * reactive 版が扱わない経路 (キーワード検索・まとめて投稿・エクスポート・複数件取得) は比較に含めない
+ */
+public class ReadLoadScenario {
+
+    public static final int CONCURRENCY = 200;
+    public static final Duration DB_LATENCY = Duration.ofMillis(50);
+    // blocking 版 (platform thread) の Tomcat スレッド数
+    public static final int PLATFORM_THREADS = 20;
+    // 読み込む投稿の数 : 同時接続数より十分多くし、同時に実行中のリクエストが同じ id に集まらないようにする
+    // (同じ id に集まると blocking 版の SingleFlight が DB 読み込みを 1 回にまとめ、キャッシュの測定になる)
+    public static final int POST_COUNT = CONCURRENCY * 5;
+
+    private static final LoadDriver DRIVER = new LoadDriver(CONCURRENCY, Duration.ofSeconds(3), Duration.ofSeconds(10));
+
+    private ReadLoadScenario() {
+    }
+
+    /**
+     * postIds を順番に巡回して GET /posts/{postId} を叩く
+     */
+    public static double run(int port, List<Long> postIds) throws InterruptedException {
+        List<URI> uris = postIds.stream()
+                .map(postId -> URI.create("http://localhost:" + port + "/posts/" + postId))
+                .toList();
+        AtomicInteger next = new AtomicInteger();
+        return DRIVER.run(() -> uris.get(Math.floorMod(next.getAndIncrement(), uris.size())));
+    }
+
+    /**
+     * スレッド数 threads のスレッドプールで、1 リクエストごとにスレッドを DB_LATENCY だけ占有する場合のスループット上限 (req/s)
+     */
+    public static double threadBoundCeiling(int threads) {
+        return threads * 1000.0 / DB_LATENCY.toMillis();
+    }
+}
@@ -0,0 +1,17 @@
+package com.myblog.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * /posts の WebFlux + R2DBC 版 (blocking 版と同じ DB・同じ API)
+ * 読み取りの多い層を少数のイベントループスレッドで捌くために使う
+ */
+@SpringBootApplication
+public class ReactiveApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveApplication.class, args);
+    }
+
+}
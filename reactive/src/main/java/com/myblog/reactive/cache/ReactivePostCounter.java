@@ -0,0 +1,81 @@
+package com.myblog.reactive.cache;
+
+import com.myblog.reactive.repository.ReactivePostRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * 投稿の総数をメモリ上に保持する (blocking 版の PostCounter と同じ方式)
+ * 書き込み・削除のたびに増減させ、COUNT(*) は初回と定期的な突き合わせでのみ実行する
+ * blocking 版のプロセスが書き込んだ分は次の突き合わせまで反映されない
+ */
+@Slf4j
+@Component
+public class ReactivePostCounter {
+
+    private final ReactivePostRepository postRepository;
+
+    private final Object lock = new Object();
+
+    // -1 は未ロード
+    private volatile long count = -1;
+    // COUNT(*) の実行中に増減があった場合、古い結果で上書きしないための世代番号
+    private long generation;
+
+    public ReactivePostCounter(ReactivePostRepository postRepository) {
+        this.postRepository = postRepository;
+    }
+
+    public Mono<Long> get() {
+        long snapshot = count;
+        return snapshot >= 0 ? Mono.just(snapshot) : load();
+    }
+
+    public void add(long delta) {
+        synchronized (lock) {
+            generation++;
+            if (count >= 0) {
+                count += delta;
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (lock) {
+            generation++;
+            count = -1;
+        }
+    }
+
+    @Scheduled(initialDelayString = "${myblog.count.reconcile-interval:5m}",
+            fixedDelayString = "${myblog.count.reconcile-interval:5m}")
+    public Mono<Void> reconcile() {
+        long before = count;
+        return load()
+                .doOnNext(after -> {
+                    if (before >= 0 && before != after) {
+                        log.info("post count reconciled : {} -> {}", before, after);
+                    }
+                })
+                .then();
+    }
+
+    private Mono<Long> load() {
+        return Mono.defer(() -> {
+            long startGeneration;
+            synchronized (lock) {
+                startGeneration = generation;
+            }
+            return postRepository.count()
+                    .doOnNext(loaded -> {
+                        synchronized (lock) {
+                            if (generation == startGeneration) {
+                                count = loaded;
+                            }
+                        }
+                    });
+        });
+    }
+}
@@ -0,0 +1,47 @@
+package com.myblog.reactive.controller;
+
+import com.myblog.exception.MyBlogException;
+import com.myblog.response.ErrorResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+
+/**
+ * blocking 版の ExceptionController と同じ ErrorResponse を返す
+ */
+@RestControllerAdvice
+public class ReactiveExceptionController {
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ErrorResponse invalidRequestHandler(WebExchangeBindException e) {
+        ErrorResponse response = ErrorResponse.builder()
+                .code("400")
+                .message("不正なリクエストです。")
+                .build();
+
+        for (FieldError fieldError : e.getFieldErrors()) {
+            response.addValidation(fieldError.getField(), fieldError.getDefaultMessage());
+        }
+
+        return response;
+    }
+
+    @ExceptionHandler(MyBlogException.class)
+    public ResponseEntity<ErrorResponse> myBlogException(MyBlogException e) {
+        int statusCode = e.getStatusCode();
+
+        ErrorResponse body = ErrorResponse.builder()
+                .code(String.valueOf(statusCode))
+                .message(e.getMessage())
+                .validation(e.getValidation())
+                .build();
+
+        return ResponseEntity.status(statusCode)
+                .body(body);
+    }
+}
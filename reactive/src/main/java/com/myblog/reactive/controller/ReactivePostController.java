@@ -0,0 +1,106 @@
+package com.myblog.reactive.controller;
+
+import com.myblog.reactive.response.PostResponse;
+import com.myblog.reactive.response.PostSummaryResponse;
+import com.myblog.reactive.service.ReactivePostService;
+import com.myblog.request.PostCreate;
+import com.myblog.request.PostCursor;
+import com.myblog.request.PostETag;
+import com.myblog.request.PostEdit;
+import com.myblog.request.PostSearch;
+import com.myblog.response.PostListETag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * blocking 版の PostController と同じ /posts の契約 (ステータス・ヘッダ・JSON・エラー形式・ETag / Last-Modified)
+ * ただしキーワード検索 (q)・まとめて投稿・エクスポート・複数件取得・write-behind は扱わない
+ */
+@RestController
+@RequiredArgsConstructor
+public class ReactivePostController {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    public static final String TOTAL_PAGES_HEADER = "X-Total-Pages";
+
+    private final ReactivePostService postService;
+
+    @PostMapping("/posts")
+    public Mono<Void> post(@RequestBody @Valid PostCreate request) {
+        request.validate();
+        return postService.write(request).then();
+    }
+
+    @GetMapping("/posts/{postId}")
+    public Mono<ResponseEntity<PostResponse>> getOnePost(@PathVariable Long postId, ServerWebExchange exchange) {
+        return postService.getOnePost(postId)
+                .<ResponseEntity<PostResponse>>map(post -> {
+                    String etag = PostETag.weakOf(postId, post.getVersion());
+                    Instant lastModified = lastModifiedOf(post.getUpdatedAt());
+                    if (exchange.checkNotModified(etag, lastModified)) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+                    }
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag);
+                    if (lastModified.isAfter(Instant.EPOCH)) {
+                        response.lastModified(lastModified);
+                    }
+                    return response.body(post);
+                });
+    }
+
+    @GetMapping("/posts")
+    public Mono<ResponseEntity<List<PostSummaryResponse>>> getList(@ModelAttribute PostSearch postSearch) {
+        // 総数はメモリ上の値を使い、リクエストごとに COUNT(*) しない
+        return Mono.zip(postService.getList(postSearch).collectList(), postService.getTotalCount())
+                .map(result -> {
+                    List<PostSummaryResponse> posts = result.getT1();
+                    long totalCount = result.getT2();
+
+                    // 削除では最終更新日時が変わらないので、一覧は ETag のみで判定する (If-None-Match は ResponseEntity の処理で 304 になる)
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                            .eTag(PostListETag.of(posts, PostSummaryResponse::getId, PostSummaryResponse::getUpdatedAt))
+                            .header(TOTAL_COUNT_HEADER, String.valueOf(totalCount))
+                            .header(TOTAL_PAGES_HEADER, String.valueOf(totalPagesOf(totalCount, postSearch)));
+                    if (!posts.isEmpty() && posts.size() == postSearch.getLimit()) {
+                        Long lastId = posts.get(posts.size() - 1).getId();
+                        response.header(NEXT_CURSOR_HEADER, PostCursor.encode(lastId));
+                    }
+                    return response.body(posts);
+                });
+    }
+
+    @PatchMapping("/posts/{postId}")
+    public Mono<Void> edit(@PathVariable Long postId, @RequestBody @Valid PostEdit request,
+                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        request.validate();
+        if (ifMatch != null) {
+            request = request.withVersion(PostETag.versionOf(postId, ifMatch));
+        }
+        return postService.edit(postId, request);
+    }
+
+    @DeleteMapping("/posts/{postId}")
+    public Mono<Void> delete(@PathVariable Long postId) {
+        return postService.delete(postId);
+    }
+
+    // 更新日時を持たない既存データは Last-Modified を返さない (EPOCH より前の値は checkNotModified でも無視される)
+    private static Instant lastModifiedOf(Instant updatedAt) {
+        return updatedAt != null && updatedAt.isAfter(Instant.EPOCH) ? updatedAt : Instant.EPOCH.minusMillis(1);
+    }
+
+    private static long totalPagesOf(long totalCount, PostSearch postSearch) {
+        int limit = postSearch.getLimit();
+        return limit > 0 ? (totalCount + limit - 1) / limit : 0;
+    }
+}
@@ -0,0 +1,136 @@
+package com.myblog.reactive.repository;
+
+import com.myblog.domain.PostExcerpt;
+import com.myblog.reactive.response.PostSummaryResponse;
+import com.myblog.render.PostRenderer;
+import com.myblog.request.PostSearch;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * blocking 版 (JPA) と同じ post テーブルを R2DBC で読み書きする
+ * content / html は保存形式のまま扱う (圧縮・展開は呼び出し側で行う)
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReactivePostRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<StoredPost> findById(Long postId) {
+        return databaseClient.sql("select id, title, content, html, version, updated_at from post where id = :id")
+                .bind("id", postId)
+                .map(row -> new StoredPost(
+                        row.get("id", Long.class),
+                        row.get("title", String.class),
+                        row.get("content", String.class),
+                        row.get("html", String.class),
+                        row.get("version", Long.class),
+                        fromColumn(row.get("updated_at", LocalDateTime.class))))
+                .one();
+    }
+
+    public Flux<PostSummaryResponse> getList(PostSearch postSearch) {
+        Long afterId = postSearch.getAfterId();
+        // 抜粋を持たない既存データは本文の先頭で代用する (blocking 版と同じ)
+        String sql = "select id, title, coalesce(excerpt, substring(content, 1, " + PostExcerpt.LENGTH + ")) as excerpt,"
+                + " updated_at"
+                + " from post"
+                + (afterId != null ? " where id < :afterId" : "")
+                + " order by id desc"
+                + " limit :limit"
+                + (afterId != null ? "" : " offset :offset");
+
+        GenericExecuteSpec spec = databaseClient.sql(sql)
+                .bind("limit", postSearch.getLimit());
+        spec = afterId != null ? spec.bind("afterId", afterId) : spec.bind("offset", postSearch.getOffset());
+
+        return spec.map(row -> new PostSummaryResponse(
+                        row.get("id", Long.class),
+                        row.get("title", String.class),
+                        row.get("excerpt", String.class),
+                        fromColumn(row.get("updated_at", LocalDateTime.class))))
+                .all();
+    }
+
+    public Mono<Long> count() {
+        return databaseClient.sql("select count(*) from post")
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    public Mono<Boolean> existsById(Long postId) {
+        return databaseClient.sql("select 1 from post where id = :id")
+                .bind("id", postId)
+                .map(row -> true)
+                .first()
+                .defaultIfEmpty(false);
+    }
+
+    public Mono<Long> insert(String title, String storedContent, String storedHtml, String excerpt, Instant updatedAt) {
+        return databaseClient.sql("insert into post (title, content, html, render_version, excerpt, updated_at, version)"
+                        + " values (:title, :content, :html, :renderVersion, :excerpt, :updatedAt, 0)")
+                .bind("title", title)
+                .bind("content", storedContent)
+                .bind("html", storedHtml)
+                .bind("renderVersion", PostRenderer.VERSION)
+                .bind("excerpt", excerpt)
+                .bind("updatedAt", toColumn(updatedAt))
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one();
+    }
+
+    /**
+     * expectedVersion を指定した場合、バージョンが一致するときだけ更新する
+     */
+    public Mono<Long> update(Long postId, String title, String storedContent, String storedHtml, String excerpt,
+                             Long expectedVersion, Instant updatedAt) {
+        String sql = "update post set title = :title, content = :content, html = :html,"
+                + " render_version = :renderVersion, excerpt = :excerpt,"
+                + " updated_at = :updatedAt, version = version + 1"
+                + " where id = :id"
+                + (expectedVersion != null ? " and version = :version" : "");
+
+        GenericExecuteSpec spec = databaseClient.sql(sql)
+                .bind("title", title)
+                .bind("content", storedContent)
+                .bind("html", storedHtml)
+                .bind("renderVersion", PostRenderer.VERSION)
+                .bind("excerpt", excerpt)
+                .bind("updatedAt", toColumn(updatedAt))
+                .bind("id", postId);
+        if (expectedVersion != null) {
+            spec = spec.bind("version", expectedVersion);
+        }
+        return spec.fetch().rowsUpdated();
+    }
+
+    public Mono<Long> delete(Long postId) {
+        return databaseClient.sql("delete from post where id = :id")
+                .bind("id", postId)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    // JPA 側は Instant を UTC の datetime として保存するので揃える
+    private static LocalDateTime toColumn(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    private static Instant fromColumn(LocalDateTime column) {
+        return column != null ? column.toInstant(ZoneOffset.UTC) : null;
+    }
+
+    public record StoredPost(Long id, String title, String storedContent, String storedHtml, Long version,
+                             Instant updatedAt) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.myblog.reactive.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * blocking 版の PostResponse と同じ JSON
+ */
+@Getter
+public class PostResponse {
+
+    private final Long id;
+    private final String title;
+    private final String content;
+    // 書き込み時に描画した HTML (描画導入前の投稿は blocking 版の再描画ジョブが処理するまで null)
+    private final String html;
+    private final Long version;
+
+    // Last-Modified 用
+    @JsonIgnore
+    private final Instant updatedAt;
+
+    public PostResponse(Long id, String title, String content, String html, Long version, Instant updatedAt) {
+        this.id = id;
+        this.title = title.substring(0, Math.min(title.length(), 10));
+        this.content = content;
+        this.html = html;
+        this.version = version;
+        this.updatedAt = updatedAt;
+    }
+}
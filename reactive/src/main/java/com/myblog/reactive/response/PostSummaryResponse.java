@@ -0,0 +1,29 @@
+package com.myblog.reactive.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * 一覧用レスポンス
+ * content には本文全体ではなく先頭の抜粋が入る
+ */
+@Getter
+public class PostSummaryResponse {
+
+    private final Long id;
+    private final String title;
+    private final String content;
+
+    // ETag 用
+    @JsonIgnore
+    private final Instant updatedAt;
+
+    public PostSummaryResponse(Long id, String title, String content, Instant updatedAt) {
+        this.id = id;
+        this.title = title;
+        this.content = content;
+        this.updatedAt = updatedAt;
+    }
+}
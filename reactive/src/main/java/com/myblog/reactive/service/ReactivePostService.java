@@ -0,0 +1,109 @@
+package com.myblog.reactive.service;
+
+import com.myblog.exception.InvalidRequest;
+import com.myblog.exception.PostConflict;
+import com.myblog.exception.PostNotFound;
+import com.myblog.reactive.cache.ReactivePostCounter;
+import com.myblog.reactive.repository.ReactivePostRepository;
+import com.myblog.reactive.response.PostResponse;
+import com.myblog.reactive.response.PostSummaryResponse;
+import com.myblog.render.PostRenderer;
+import com.myblog.render.RenderedContent;
+import com.myblog.request.PostCreate;
+import com.myblog.request.PostEdit;
+import com.myblog.request.PostSearch;
+import com.myblog.storage.ContentCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * blocking 版の PostService と同じ規則で投稿を扱う
+ * 投稿キャッシュ・検索インデックスは blocking 版のプロセス内にあるので、ここでは毎回 DB を読む (総数だけはメモリ上に持つ)
+ */
+@Service
+public class ReactivePostService {
+
+    private final ReactivePostRepository postRepository;
+    private final ReactivePostCounter postCounter;
+    private final int compressThreshold;
+
+    public ReactivePostService(ReactivePostRepository postRepository,
+                               ReactivePostCounter postCounter,
+                               @Value("${myblog.content.compress-threshold:1024}") int compressThreshold) {
+        this.postRepository = postRepository;
+        this.postCounter = postCounter;
+        this.compressThreshold = compressThreshold;
+    }
+
+    public Mono<Long> write(PostCreate postCreate) {
+        String content = postCreate.getContent();
+        RenderedContent rendered = PostRenderer.render(content);
+        return postRepository.insert(postCreate.getTitle(), encode(content), encode(rendered.html()),
+                        rendered.excerpt(), now())
+                .doOnNext(postId -> postCounter.add(1));
+    }
+
+    public Mono<PostResponse> getOnePost(Long postId) {
+        return postRepository.findById(postId)
+                .map(post -> new PostResponse(post.id(), post.title(),
+                        ContentCodec.decode(post.storedContent()), ContentCodec.decode(post.storedHtml()),
+                        post.version(), post.updatedAt()))
+                .switchIfEmpty(Mono.error(PostNotFound.INSTANCE));
+    }
+
+    /**
+     * 検索インデックスは blocking 版のプロセス内にしかないので、キーワード検索は扱わない (400)
+     */
+    public Flux<PostSummaryResponse> getList(PostSearch postSearch) {
+        if (postSearch.isKeywordSearch()) {
+            return Flux.error(new InvalidRequest("q", "キーワード検索には対応していません。"));
+        }
+        return postRepository.getList(postSearch);
+    }
+
+    public Mono<Long> getTotalCount() {
+        return postCounter.get();
+    }
+
+    public Mono<Void> edit(Long postId, PostEdit postEdit) {
+        String content = postEdit.getContent();
+        RenderedContent rendered = PostRenderer.render(content);
+        return postRepository.update(postId, postEdit.getTitle(), encode(content), encode(rendered.html()),
+                        rendered.excerpt(), postEdit.getVersion(), now())
+                .<Void>flatMap(updated -> {
+                    if (updated > 0) {
+                        return Mono.empty();
+                    }
+                    if (postEdit.getVersion() == null) {
+                        return Mono.error(PostNotFound.INSTANCE);
+                    }
+                    return postRepository.existsById(postId)
+                            .flatMap(exists -> Mono.<Void>error(exists ? new PostConflict() : PostNotFound.INSTANCE));
+                });
+    }
+
+    public Mono<Void> delete(Long postId) {
+        return postRepository.delete(postId)
+                .flatMap(deleted -> {
+                    if (deleted == 0) {
+                        return Mono.<Void>error(PostNotFound.INSTANCE);
+                    }
+                    postCounter.add(-1);
+                    return Mono.<Void>empty();
+                });
+    }
+
+    private String encode(String text) {
+        return ContentCodec.encode(text, compressThreshold);
+    }
+
+    // ETag / Last-Modified はミリ秒単位で比較するので DB の丸めと揃える (blocking 版の Post.now() と同じ)
+    private static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+}
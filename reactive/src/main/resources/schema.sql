@@ -0,0 +1,12 @@
+-- 組み込み DB (H2) で起動したときだけ実行される
+-- MySQL では blocking 版の JPA (ddl-auto) が作ったテーブルをそのまま使う
+create table if not exists post (
+    id             bigint auto_increment primary key,
+    title          varchar(255),
+    content        varchar(1000000),
+    html           varchar(1000000),
+    render_version int,
+    excerpt        varchar(200),
+    updated_at     timestamp(6),
+    version        bigint not null default 0
+);
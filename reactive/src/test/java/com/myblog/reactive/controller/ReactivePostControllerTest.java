@@ -0,0 +1,292 @@
+package com.myblog.reactive.controller;
+
+import com.myblog.reactive.cache.ReactivePostCounter;
+import com.myblog.reactive.service.ReactivePostService;
+import com.myblog.request.PostCreate;
+import com.myblog.request.PostEdit;
+import com.myblog.storage.ContentCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+@AutoConfigureWebTestClient
+@SpringBootTest(properties = {
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive-test;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password=",
+        "myblog.content.compress-threshold=100"
+})
+class ReactivePostControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ReactivePostService postService;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private ReactivePostCounter postCounter;
+
+    @BeforeEach
+    void clean() {
+        databaseClient.sql("delete from post").then().block();
+        postCounter.clear();
+    }
+
+    @Test
+    @DisplayName("/posts で保存した投稿を 1 件取得できる")
+    void test1() {
+        // given
+        PostCreate request = PostCreate.builder()
+                .title("タイトルです。")
+                .content("内容です。")
+                .build();
+
+        // when
+        webTestClient.post().uri("/posts")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().isEmpty();
+
+        // then
+        Long postId = databaseClient.sql("select id from post")
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .block();
+
+        webTestClient.get().uri("/posts/{postId}", postId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "W/\"" + postId + "-0\"")
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(postId)
+                .jsonPath("$.title").isEqualTo("タイトルです。")
+                .jsonPath("$.content").isEqualTo("内容です。")
+                .jsonPath("$.html").isEqualTo("<p>内容です。</p>\n")
+                .jsonPath("$.version").isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("/posts のタイトルは必須 (blocking 版と同じ ErrorResponse)")
+    void test2() {
+        PostCreate request = PostCreate.builder()
+                .content("内容です。")
+                .build();
+
+        webTestClient.post().uri("/posts")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.code").isEqualTo("400")
+                .jsonPath("$.message").isEqualTo("不正なリクエストです。")
+                .jsonPath("$.validation.title").isEqualTo("タイトルを入力してください。");
+    }
+
+    @Test
+    @DisplayName("存在しない投稿は 404")
+    void test3() {
+        webTestClient.get().uri("/posts/{postId}", 1_000_000L)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.code").isEqualTo("404");
+    }
+
+    @Test
+    @DisplayName("一覧は新しい順で、次ページのカーソルと総数をヘッダで返す")
+    void test4() {
+        // given
+        IntStream.rangeClosed(1, 5).forEach(i -> postService.write(PostCreate.builder()
+                .title("title " + i)
+                .content("content " + i)
+                .build()).block());
+
+        // expected
+        HttpHeaders headers = webTestClient.get().uri("/posts?page=1&size=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(ReactivePostController.TOTAL_COUNT_HEADER, "5")
+                .expectHeader().valueEquals(ReactivePostController.TOTAL_PAGES_HEADER, "3")
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].title").isEqualTo("title 5")
+                .jsonPath("$[1].title").isEqualTo("title 4")
+                .returnResult()
+                .getResponseHeaders();
+
+        String cursor = headers.getFirst(ReactivePostController.NEXT_CURSOR_HEADER);
+        webTestClient.get().uri("/posts?size=2&after={cursor}", cursor)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].title").isEqualTo("title 3")
+                .jsonPath("$[1].title").isEqualTo("title 2");
+
+        webTestClient.get().uri("/posts?after={cursor}", "broken")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @DisplayName("If-Match のバージョンが古い場合は 409")
+    void test5() {
+        // given
+        Long postId = postService.write(PostCreate.builder()
+                .title("title")
+                .content("content")
+                .build()).block();
+        PostEdit edit = PostEdit.builder()
+                .title("edited")
+                .content("edited content")
+                .build();
+
+        // expected
+        webTestClient.patch().uri("/posts/{postId}", postId)
+                .header(HttpHeaders.IF_MATCH, "\"" + postId + "-0\"")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(edit)
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.patch().uri("/posts/{postId}", postId)
+                .header(HttpHeaders.IF_MATCH, "\"" + postId + "-0\"")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(edit)
+                .exchange()
+                .expectStatus().isEqualTo(409);
+
+        webTestClient.get().uri("/posts/{postId}", postId)
+                .exchange()
+                .expectBody()
+                .jsonPath("$.title").isEqualTo("edited")
+                .jsonPath("$.version").isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("長い本文は blocking 版と同じ形式で圧縮して保存し、読み込み時に展開する")
+    void test6() {
+        // given
+        String content = "本文".repeat(500);
+        Long postId = postService.write(PostCreate.builder()
+                .title("title")
+                .content(content)
+                .build()).block();
+
+        // when
+        String stored = databaseClient.sql("select content from post where id = :id")
+                .bind("id", postId)
+                .map(row -> row.get("content", String.class))
+                .one()
+                .block();
+
+        // then
+        assertTrue(ContentCodec.isDeflated(stored));
+        assertEquals(content, ContentCodec.decode(stored));
+        webTestClient.get().uri("/posts/{postId}", postId)
+                .exchange()
+                .expectBody()
+                .jsonPath("$.content").isEqualTo(content);
+    }
+
+    @Test
+    @DisplayName("削除後は 404")
+    void test7() {
+        Long postId = postService.write(PostCreate.builder()
+                .title("title")
+                .content("content")
+                .build()).block();
+
+        webTestClient.delete().uri("/posts/{postId}", postId)
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.delete().uri("/posts/{postId}", postId)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("1 件取得は Last-Modified を返し、If-None-Match / If-Modified-Since が一致すれば 304")
+    void test8() {
+        // given
+        Long postId = postService.write(PostCreate.builder()
+                .title("title")
+                .content("content")
+                .build()).block();
+
+        HttpHeaders headers = webTestClient.get().uri("/posts/{postId}", postId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.LAST_MODIFIED)
+                .expectBody().returnResult()
+                .getResponseHeaders();
+
+        // expected
+        webTestClient.get().uri("/posts/{postId}", postId)
+                .header(HttpHeaders.IF_NONE_MATCH, headers.getETag())
+                .exchange()
+                .expectStatus().isNotModified();
+
+        webTestClient.get().uri("/posts/{postId}", postId)
+                .header(HttpHeaders.IF_MODIFIED_SINCE, headers.getFirst(HttpHeaders.LAST_MODIFIED))
+                .exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    @DisplayName("一覧は ETag を返して一致すれば 304、総数は書き込み・削除で増減する")
+    void test9() {
+        // given
+        Long postId = postService.write(PostCreate.builder()
+                .title("title 1")
+                .content("content 1")
+                .build()).block();
+
+        String etag = webTestClient.get().uri("/posts?page=1&size=5")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(ReactivePostController.TOTAL_COUNT_HEADER, "1")
+                .expectBody().returnResult()
+                .getResponseHeaders()
+                .getETag();
+
+        // expected
+        webTestClient.get().uri("/posts?page=1&size=5")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotModified();
+
+        postService.write(PostCreate.builder()
+                .title("title 2")
+                .content("content 2")
+                .build()).block();
+        postService.delete(postId).block();
+
+        webTestClient.get().uri("/posts?page=1&size=5")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(ReactivePostController.TOTAL_COUNT_HEADER, "1")
+                .expectBody()
+                .jsonPath("$[0].title").isEqualTo("title 2");
+    }
+}
@@ -0,0 +1,58 @@
+package com.myblog.reactive.load;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Statement;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.function.UnaryOperator;
+
+/**
+ * ConnectionFactory をラップし、クエリ実行のたびに結果を一定時間遅らせる (DB のレイテンシを模擬)
+ * blocking 版の DbLatencyPostProcessor と違い、待っている間もスレッドは占有しない
+ */
+public class R2dbcLatencyPostProcessor implements BeanPostProcessor {
+
+    private final Duration latency;
+
+    public R2dbcLatencyPostProcessor(Duration latency) {
+        this.latency = latency;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof ConnectionFactory connectionFactory) {
+            return proxy(ConnectionFactory.class, connectionFactory, "create",
+                    connections -> Mono.from((Publisher<?>) connections)
+                            .map(connection -> proxy(Connection.class, (Connection) connection, "createStatement",
+                                    statement -> proxy(Statement.class, (Statement) statement, "execute",
+                                            results -> Flux.from((Publisher<?>) results).delaySubscription(latency)))));
+        }
+        return bean;
+    }
+
+    private <T> T proxy(Class<T> type, T target, String wrapMethod, UnaryOperator<Object> wrapper) {
+        Object[] self = new Object[1];
+        InvocationHandler handler = (proxy, method, args) -> {
+            try {
+                Object result = method.invoke(target, args);
+                if (method.getName().equals(wrapMethod)) {
+                    return wrapper.apply(result);
+                }
+                // bind などメソッドチェーンで自身を返すものはラップしたまま返す
+                return result == target ? self[0] : result;
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        };
+        self[0] = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+        return type.cast(self[0]);
+    }
+}
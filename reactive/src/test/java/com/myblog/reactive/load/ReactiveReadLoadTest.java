@@ -0,0 +1,61 @@
+package com.myblog.reactive.load;
+
+import com.myblog.load.ReadLoadScenario;
+import com.myblog.reactive.ReactiveApplication;
+import com.myblog.reactive.service.ReactivePostService;
+import com.myblog.request.PostCreate;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+import static com.myblog.load.ReadLoadScenario.*;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ./gradlew :reactive:loadTest
+ * blocking 版の PostReadLoadTest と同じシナリオ (同時接続数・DB レイテンシ) で測る
+ */
+@Slf4j
+@Tag("load")
+class ReactiveReadLoadTest {
+
+    @Test
+    @DisplayName("DBのレイテンシがある場合でも、少数のイベントループスレッドで platform thread 版の上限を超えるスループットが出る")
+    void test1() throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ReactiveApplication.class)
+                .initializers(c -> c.getBeanFactory().addBeanPostProcessor(new R2dbcLatencyPostProcessor(DB_LATENCY)))
+                .properties(
+                        "server.port=0",
+                        "spring.r2dbc.url=r2dbc:h2:mem:///load-reactive;DB_CLOSE_DELAY=-1",
+                        "spring.r2dbc.username=sa",
+                        "spring.r2dbc.password=",
+                        "spring.r2dbc.pool.max-size=" + CONCURRENCY)
+                .run()) {
+
+            ReactivePostService postService = context.getBean(ReactivePostService.class);
+            List<Long> postIds = Flux.range(0, POST_COUNT)
+                    .concatMap(i -> postService.write(PostCreate.builder()
+                            .title("load title " + i)
+                            .content("load content " + i)
+                            .build()))
+                    .collectList()
+                    .block();
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            double reactive = ReadLoadScenario.run(port, postIds);
+            double ceiling = threadBoundCeiling(PLATFORM_THREADS);
+
+            log.info("GET /posts/:postId : reactive = {} req/s on {} cores (platform threads x {} ceiling = {} req/s)",
+                    String.format("%.1f", reactive), Runtime.getRuntime().availableProcessors(),
+                    PLATFORM_THREADS, String.format("%.1f", ceiling));
+            assertTrue(reactive > ceiling);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.myblog.benchmark;
+
+import com.myblog.MyblogApplication;
+import com.myblog.request.PostCreate;
+import com.myblog.service.PostService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * ベンチマーク用に組み込み H2 でアプリケーションを起動する
+ */
+public class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    public static ConfigurableApplicationContext startWithH2(String name, String... properties) {
+        List<String> all = new ArrayList<>(List.of(
+                "spring.datasource.url=jdbc:h2:mem:" + name,
+                "spring.datasource.driver-class-name=org.h2.Driver",
+                "spring.datasource.username=sa",
+                "spring.datasource.password=",
+                "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "spring.jpa.hibernate.ddl-auto=create-drop"));
+        all.addAll(List.of(properties));
+        return start(all.toArray(String[]::new));
+    }
+
+    public static ConfigurableApplicationContext start(String... properties) {
+        return new SpringApplicationBuilder(MyblogApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.jpa.show-sql=false", "logging.level.root=warn")
+                .properties(properties)
+                .run();
+    }
+
+    public static void seed(ConfigurableApplicationContext context, int count, int contentLength) {
+        PostService postService = context.getBean(PostService.class);
+        postService.writeAll(IntStream.range(0, count)
+                .mapToObj(i -> PostCreate.builder()
+                        .title("benchmark title " + i)
+                        .content(("benchmark content " + i + " ").repeat(contentLength / 20 + 1).substring(0, contentLength))
+                        .build())
+                .iterator());
+    }
+}
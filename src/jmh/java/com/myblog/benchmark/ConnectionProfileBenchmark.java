@@ -0,0 +1,103 @@
+package com.myblog.benchmark;
+
+import com.myblog.cache.PostBody;
+import com.myblog.domain.Post;
+import com.myblog.repository.PostRepository;
+import com.myblog.request.PostSearch;
+import com.myblog.response.PostSummaryResponse;
+import com.myblog.service.PostService;
+import com.myblog.service.PostWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 既定の設定と prod プロファイル (接続プール・statement cache・SQL ログ) の比較
+ * MySQL が必要 : MYBLOG_BENCH_MYSQL_URL で接続先を変えられる (ユーザー・パスワードは application.properties のもの)
+ *
+ * ./gradlew jmh -PjmhIncludes=ConnectionProfileBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class ConnectionProfileBenchmark {
+
+    private static final String DEFAULT_URL =
+            "jdbc:mysql://localhost:3306/myBlog_bench?createDatabaseIfNotExist=true&useCursorFetch=true";
+    private static final int POST_COUNT = 10_000;
+    private static final int CONTENT_LENGTH = 2_000;
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"default", "prod"})
+    public String profile;
+
+    private ConfigurableApplicationContext context;
+    private PostService postService;
+    private PostWriter postWriter;
+    private long minId;
+    private long maxId;
+    private List<Post> batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String url = Objects.requireNonNullElse(System.getenv("MYBLOG_BENCH_MYSQL_URL"), DEFAULT_URL);
+        List<String> properties = new ArrayList<>(List.of(
+                "spring.datasource.url=" + url,
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                // キャッシュを通さず、毎回 DB まで届く経路を測る
+                "spring.cache.type=none",
+                "myblog.content.migration.enabled=false"));
+        if (profile.equals("prod")) {
+            properties.add("spring.profiles.active=prod");
+        } else {
+            // 現在の application.properties と同じく SQL を標準出力に書く
+            properties.add("spring.jpa.show-sql=true");
+        }
+        context = BenchmarkApplication.start(properties.toArray(String[]::new));
+        BenchmarkApplication.seed(context, POST_COUNT, CONTENT_LENGTH);
+
+        postService = context.getBean(PostService.class);
+        postWriter = context.getBean(PostWriter.class);
+        List<Long> ids = context.getBean(PostRepository.class).findAll().stream()
+                .map(Post::getId)
+                .sorted()
+                .toList();
+        minId = ids.get(0);
+        maxId = ids.get(ids.size() - 1);
+
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(Post.builder()
+                    .title("batch title " + i)
+                    .content("batch content " + i)
+                    .build());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // GET /posts/{postId} が使う経路
+    @Benchmark
+    public PostBody getOnePostBody() {
+        return postService.getOnePostBody(ThreadLocalRandom.current().nextLong(minId, maxId + 1));
+    }
+
+    @Benchmark
+    public List<PostSummaryResponse> getListDeepOffset() {
+        return postService.getList(PostSearch.builder().page(POST_COUNT / 20).size(10).build());
+    }
+
+    @Benchmark
+    public List<Long> writeBatch() {
+        return postWriter.writeBatch(batch);
+    }
+}
@@ -0,0 +1,50 @@
+package com.myblog.benchmark;
+
+import com.myblog.controller.ExceptionController;
+import com.myblog.exception.InvalidRequest;
+import com.myblog.exception.MyBlogException;
+import com.myblog.exception.PostNotFound;
+import com.myblog.response.ErrorResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 例外の生成から ExceptionController でレスポンスを作るまで
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ExceptionBenchmark {
+
+    private final ExceptionController exceptionController = new ExceptionController(new SimpleMeterRegistry());
+
+    @Benchmark
+    public ResponseEntity<ErrorResponse> postNotFound() {
+        try {
+            throw new PostNotFound();
+        } catch (MyBlogException e) {
+            return exceptionController.myBlogException(e);
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorResponse> postNotFoundShared() {
+        try {
+            throw PostNotFound.INSTANCE;
+        } catch (MyBlogException e) {
+            return exceptionController.myBlogException(e);
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorResponse> invalidRequest() {
+        try {
+            throw new InvalidRequest("title", "タイトルに’NG’を含めることはできません。");
+        } catch (MyBlogException e) {
+            return exceptionController.myBlogException(e);
+        }
+    }
+}
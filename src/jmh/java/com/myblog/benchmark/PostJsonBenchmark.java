@@ -0,0 +1,55 @@
+package com.myblog.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myblog.response.PostResponse;
+import com.myblog.response.PostSummaryResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * 一覧レスポンスの JSON シリアライズ (件数は PostSearch.MAX_SIZE まで)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PostJsonBenchmark {
+
+    @Param({"10", "100", "2000"})
+    public int size;
+
+    @Param({"200", "10000"})
+    public int contentLength;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private List<PostResponse> posts;
+    private List<PostSummaryResponse> summaries;
+
+    @Setup
+    public void setUp() {
+        String content = "x".repeat(contentLength);
+        String html = "<p>" + content + "</p>\n";
+        Instant now = Instant.now();
+        posts = IntStream.range(0, size)
+                .mapToObj(i -> new PostResponse((long) i, "title " + i, content, html, 0L, now))
+                .toList();
+        summaries = IntStream.range(0, size)
+                .mapToObj(i -> new PostSummaryResponse((long) i, "title " + i, content.substring(0, Math.min(200, contentLength)), now))
+                .toList();
+    }
+
+    @Benchmark
+    public byte[] serializePostResponses() throws Exception {
+        return objectMapper.writeValueAsBytes(posts);
+    }
+
+    @Benchmark
+    public byte[] serializePostSummaries() throws Exception {
+        return objectMapper.writeValueAsBytes(summaries);
+    }
+}
@@ -0,0 +1,77 @@
+package com.myblog.benchmark;
+
+import com.myblog.cache.PostBody;
+import com.myblog.domain.Post;
+import com.myblog.repository.PostRepository;
+import com.myblog.request.PostSearch;
+import com.myblog.response.PostSummaryResponse;
+import com.myblog.service.PostService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PostService の読み取り経路 (組み込み H2)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PostServiceBenchmark {
+
+    private static final int POST_COUNT = 10_000;
+    private static final int CONTENT_LENGTH = 2_000;
+
+    @Param({"none", "caffeine"})
+    public String cacheType;
+
+    private ConfigurableApplicationContext context;
+    private PostService postService;
+    private long minId;
+    private long maxId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.startWithH2("service-" + cacheType, "spring.cache.type=" + cacheType);
+        BenchmarkApplication.seed(context, POST_COUNT, CONTENT_LENGTH);
+
+        postService = context.getBean(PostService.class);
+        List<Long> ids = context.getBean(PostRepository.class).findAll().stream()
+                .map(Post::getId)
+                .sorted()
+                .toList();
+        minId = ids.get(0);
+        maxId = ids.get(ids.size() - 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // GET /posts/{postId} が使う経路 (直列化・gzip 済みの本文)
+    @Benchmark
+    public PostBody getOnePostBody() {
+        return postService.getOnePostBody(ThreadLocalRandom.current().nextLong(minId, maxId + 1));
+    }
+
+    @Benchmark
+    public List<PostSummaryResponse> getListFirstPage() {
+        return postService.getList(PostSearch.builder().page(1).size(5).build());
+    }
+
+    @Benchmark
+    public List<PostSummaryResponse> getListDeepOffset() {
+        return postService.getList(PostSearch.builder().page(POST_COUNT / 20).size(10).build());
+    }
+
+    // size が PostSearch の閾値を超える一覧は getList ではなく writeList でストリーミングされる
+    @Benchmark
+    public void writeListMaxSize() throws IOException {
+        postService.writeList(PostSearch.builder().page(1).size(2000).build(), OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,12 @@
+package com.myblog.cache;
+
+import java.time.Instant;
+
+/**
+ * 直列化済みの投稿 1 件 : 同じ投稿への繰り返しの読み込みで、直列化も圧縮もやり直さない
+ *
+ * @param json UTF-8 の JSON
+ * @param gzip json を gzip したもの。圧縮しても小さくならない場合は null
+ */
+public record PostBody(Long version, Instant updatedAt, byte[] json, byte[] gzip) {
+}
@@ -0,0 +1,80 @@
+package com.myblog.cache;
+
+import com.myblog.repository.PostRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 投稿の総数をメモリ上に保持する
+ * 書き込み・削除のたびに増減させ、COUNT(*) は起動後の初回と定期的な突き合わせでのみ実行する
+ */
+@Slf4j
+@Component
+public class PostCounter {
+
+    private final PostRepository postRepository;
+
+    private final Object lock = new Object();
+
+    // -1 は未ロード
+    private volatile long count = -1;
+    // COUNT(*) の実行中に増減があった場合、古い結果で上書きしないための世代番号
+    private long generation;
+
+    public PostCounter(PostRepository postRepository, MeterRegistry meterRegistry) {
+        this.postRepository = postRepository;
+        Gauge.builder("myblog.posts.count", this, counter -> counter.count)
+                .description("投稿の総数 (未ロード時は -1)")
+                .register(meterRegistry);
+    }
+
+    public long get() {
+        long snapshot = count;
+        return snapshot >= 0 ? snapshot : load();
+    }
+
+    public void add(long delta) {
+        synchronized (lock) {
+            generation++;
+            if (count >= 0) {
+                count += delta;
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (lock) {
+            generation++;
+            count = -1;
+        }
+    }
+
+    @Scheduled(initialDelayString = "${myblog.count.reconcile-interval:5m}",
+            fixedDelayString = "${myblog.count.reconcile-interval:5m}")
+    public void reconcile() {
+        long before = count;
+        long after = load();
+        if (before >= 0 && before != after) {
+            log.info("post count reconciled : {} -> {}", before, after);
+        }
+    }
+
+    private long load() {
+        long startGeneration;
+        synchronized (lock) {
+            startGeneration = generation;
+        }
+
+        long loaded = postRepository.count();
+
+        synchronized (lock) {
+            if (generation == startGeneration) {
+                count = loaded;
+            }
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,218 @@
+package com.myblog.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 存在する投稿 id のビット集合 : 存在しない id へのリクエストを DB に問い合わせずに 404 にする
+ * id は AUTO_INCREMENT で密に振られるので、Bloom filter と違って偽陽性のない集合を id 数 / 8 バイトで持てる
+ *
+ * 採番済みでまだコミットされていない行は走査に現れないので、走査前の最大 id から safety-margin を引いた値以下だけを確定情報として扱う
+ * それより大きい id と max-id を超える id は「不明」として DB に問い合わせる
+ * このインスタンスで削除した id は採番し直されないので、範囲に関係なく存在しないものとして扱う
+ */
+@Slf4j
+@Component
+public class PostIdFilter {
+
+    private static final String MAX_ID_SQL = "select coalesce(max(id), 0) from post";
+    private static final String SELECT_SQL = "select id from post where id <= ?";
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Counter rejected;
+    private final long safetyMargin;
+    private final long maxId;
+
+    private final Object lock = new Object();
+
+    // null は未構築 (すべて「不明」)
+    private volatile Snapshot snapshot;
+    // 再構築中の追加・削除 : 構築し終えた集合に適用し直す
+    private List<Change> pending;
+
+    public PostIdFilter(JdbcTemplate jdbcTemplate,
+                        MeterRegistry meterRegistry,
+                        @Value("${myblog.filter.safety-margin:1000}") long safetyMargin,
+                        @Value("${myblog.filter.max-id:67108864}") long maxId) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rejected = meterRegistry.counter("myblog.posts.filter.rejected");
+        this.safetyMargin = safetyMargin;
+        this.maxId = maxId;
+    }
+
+    /**
+     * true の場合、その id の投稿は確実に存在しない
+     */
+    public boolean isKnownAbsent(Long postId) {
+        if (postId == null || postId <= 0) {
+            return true;
+        }
+        Snapshot current = snapshot;
+        if (current == null || postId > maxId || current.contains(postId)) {
+            return false;
+        }
+        if (postId > current.authoritativeMax() && !current.isDeleted(postId)) {
+            return false;
+        }
+        rejected.increment();
+        return true;
+    }
+
+    public void add(Long postId) {
+        apply(new Change(postId, true));
+    }
+
+    public void remove(Long postId) {
+        apply(new Change(postId, false));
+    }
+
+    public void clear() {
+        synchronized (lock) {
+            snapshot = null;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${myblog.filter.rebuild-interval:10m}",
+            fixedDelayString = "${myblog.filter.rebuild-interval:10m}")
+    public void rebuild() {
+        synchronized (lock) {
+            pending = new ArrayList<>();
+        }
+
+        long authoritativeMax;
+        Snapshot built;
+        try {
+            // 走査より前に読んだ最大 id を基準にする (走査中にコミットされた小さい id を「存在しない」と確定させない)
+            Long maxBeforeScan = jdbcTemplate.queryForObject(MAX_ID_SQL, Long.class);
+            authoritativeMax = Math.min(Math.max(0, (maxBeforeScan != null ? maxBeforeScan : 0) - safetyMargin), maxId);
+
+            Snapshot[] building = {Snapshot.empty()};
+            jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement(SELECT_SQL);
+                statement.setFetchSize(FETCH_SIZE);
+                statement.setLong(1, maxId);
+                return statement;
+            }, rs -> {
+                building[0] = building[0].with(rs.getLong(1), true);
+            });
+            built = building[0];
+        } catch (RuntimeException e) {
+            synchronized (lock) {
+                pending = null;
+            }
+            throw e;
+        }
+
+        synchronized (lock) {
+            Snapshot rebuilt = built.withAuthoritativeMax(authoritativeMax);
+            if (snapshot != null) {
+                rebuilt = rebuilt.withDeleted(snapshot.deleted());
+            }
+            for (Change change : pending) {
+                rebuilt = rebuilt.with(change.postId(), change.added());
+            }
+            pending = null;
+            snapshot = rebuilt;
+        }
+        log.info("post id filter rebuilt : authoritative max id {}", authoritativeMax);
+    }
+
+    private void apply(Change change) {
+        // 上限を超える id は持たない (常に「不明」)
+        if (change.postId() == null || change.postId() <= 0 || change.postId() > maxId) {
+            return;
+        }
+        synchronized (lock) {
+            if (pending != null) {
+                pending.add(change);
+            }
+            if (snapshot != null) {
+                snapshot = snapshot.with(change.postId(), change.added());
+            }
+        }
+    }
+
+    /**
+     * bits / deleted は書き込み側 (lock 内) だけが更新し、読み込み側はロックなしで参照する
+     * 範囲外の id を追加する場合のみ配列を拡張した新しい Snapshot を作る (id は呼び出し側で max-id 以下に絞る)
+     */
+    private record Snapshot(AtomicLongArray bits, AtomicLongArray deleted, long authoritativeMax) {
+
+        static Snapshot empty() {
+            return new Snapshot(new AtomicLongArray(1024), new AtomicLongArray(0), 0);
+        }
+
+        boolean contains(long postId) {
+            return isSet(bits, postId);
+        }
+
+        boolean isDeleted(long postId) {
+            return isSet(deleted, postId);
+        }
+
+        Snapshot with(long postId, boolean present) {
+            int word = (int) (postId >>> 6);
+            long mask = 1L << postId;
+            if (present) {
+                AtomicLongArray target = grow(bits, word);
+                target.getAndUpdate(word, w -> w | mask);
+                return target == bits ? this : new Snapshot(target, deleted, authoritativeMax);
+            }
+
+            if (word < bits.length()) {
+                bits.getAndUpdate(word, w -> w & ~mask);
+            }
+            AtomicLongArray target = grow(deleted, word);
+            target.getAndUpdate(word, w -> w | mask);
+            return target == deleted ? this : new Snapshot(bits, target, authoritativeMax);
+        }
+
+        Snapshot withAuthoritativeMax(long max) {
+            return new Snapshot(bits, deleted, max);
+        }
+
+        // 削除した id は採番し直されないので、再構築後も引き継ぐ
+        Snapshot withDeleted(AtomicLongArray previous) {
+            AtomicLongArray merged = grow(deleted, previous.length() - 1);
+            for (int i = 0; i < previous.length(); i++) {
+                long w = previous.get(i);
+                if (w != 0) {
+                    merged.getAndUpdate(i, current -> current | w);
+                }
+            }
+            return new Snapshot(bits, merged, authoritativeMax);
+        }
+
+        private static boolean isSet(AtomicLongArray array, long postId) {
+            int word = (int) (postId >>> 6);
+            return word < array.length() && (array.get(word) & (1L << postId)) != 0;
+        }
+
+        private static AtomicLongArray grow(AtomicLongArray array, int word) {
+            if (word < array.length()) {
+                return array;
+            }
+            AtomicLongArray grown = new AtomicLongArray(Math.max(word + 1, array.length() * 2));
+            for (int i = 0; i < array.length(); i++) {
+                grown.set(i, array.get(i));
+            }
+            return grown;
+        }
+    }
+
+    private record Change(Long postId, boolean added) {
+    }
+}
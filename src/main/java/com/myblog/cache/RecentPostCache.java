@@ -0,0 +1,144 @@
+package com.myblog.cache;
+
+import com.myblog.datasource.PrimaryReads;
+import com.myblog.repository.PostRepository;
+import com.myblog.request.PostSearch;
+import com.myblog.response.PostSummaryResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 最新 N 件の投稿一覧をメモリ上に保持する
+ * 書き込みのたびに破棄せず、差分だけを反映する
+ */
+@Component
+public class RecentPostCache {
+
+    private final PostRepository postRepository;
+    private final int capacity;
+
+    private final Object lock = new Object();
+
+    // 新しい順、不変リスト。null は未ロード
+    private volatile List<PostSummaryResponse> window;
+    // window がテーブルの全件を含んでいるか
+    private volatile boolean complete;
+    // ロード中に更新が入った場合、古い結果で上書きしないための世代番号
+    private long generation;
+
+    public RecentPostCache(PostRepository postRepository,
+                           @Value("${myblog.cache.recent-size:50}") int capacity) {
+        this.postRepository = postRepository;
+        this.capacity = capacity;
+    }
+
+    public boolean covers(PostSearch postSearch) {
+        return !postSearch.isCursorMode()
+                && !postSearch.isKeywordSearch()
+                && postSearch.getOffset() == 0
+                && postSearch.getLimit() <= capacity;
+    }
+
+    public List<PostSummaryResponse> getFirstPage(int limit) {
+        List<PostSummaryResponse> snapshot = window;
+        if (snapshot == null || (snapshot.size() < limit && !complete)) {
+            snapshot = load();
+        }
+        return snapshot.subList(0, Math.min(limit, snapshot.size()));
+    }
+
+    public void add(PostSummaryResponse summary) {
+        synchronized (lock) {
+            generation++;
+            if (window == null) {
+                return;
+            }
+            // コミット後の反映より先に load() が同じ行を読んでいる場合がある
+            if (window.stream().anyMatch(p -> p.getId().equals(summary.getId()))) {
+                return;
+            }
+            // コミット順と id 順は一致しないので、id の降順の位置に挿入する
+            int index = 0;
+            while (index < window.size() && window.get(index).getId() > summary.getId()) {
+                index++;
+            }
+            // 切り詰めた window の末尾より古い id は、間に window 外の投稿があり得るので入れない
+            if (index == window.size() && !complete) {
+                return;
+            }
+            List<PostSummaryResponse> updated = new ArrayList<>(window);
+            updated.add(index, summary);
+            if (updated.size() > capacity) {
+                updated = updated.subList(0, capacity);
+                complete = false;
+            }
+            window = List.copyOf(updated);
+        }
+    }
+
+    /**
+     * title / excerpt が null の場合は元の値を引き継ぐ
+     */
+    public void edit(Long postId, String title, String excerpt, Instant updatedAt) {
+        synchronized (lock) {
+            generation++;
+            if (window == null) {
+                return;
+            }
+            List<PostSummaryResponse> updated = new ArrayList<>(window);
+            updated.replaceAll(p -> !p.getId().equals(postId) ? p : new PostSummaryResponse(
+                    postId,
+                    title != null ? title : p.getTitle(),
+                    excerpt != null ? excerpt : p.getContent(),
+                    updatedAt));
+            window = List.copyOf(updated);
+        }
+    }
+
+    public void remove(Long postId) {
+        synchronized (lock) {
+            generation++;
+            if (window == null) {
+                return;
+            }
+            List<PostSummaryResponse> updated = new ArrayList<>(window);
+            if (updated.removeIf(p -> p.getId().equals(postId))) {
+                window = List.copyOf(updated);
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (lock) {
+            generation++;
+            window = null;
+            complete = false;
+        }
+    }
+
+    private List<PostSummaryResponse> load() {
+        long startGeneration;
+        synchronized (lock) {
+            startGeneration = generation;
+        }
+
+        PostSearch windowSearch = PostSearch.builder()
+                .page(1)
+                .size(capacity)
+                .build();
+        // 全員に配る一覧なので、レプリカの遅延した行ではなく primary から読む
+        List<PostSummaryResponse> loaded = List.copyOf(PrimaryReads.call(() -> postRepository.getList(windowSearch)));
+
+        synchronized (lock) {
+            if (generation == startGeneration) {
+                window = loaded;
+                complete = loaded.size() < capacity;
+            }
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,42 @@
+package com.myblog.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.myblog.cache.PostBody;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+// トランザクションより外側で評価させ、コミット後に evict されるようにする
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+@Configuration
+public class CacheConfig {
+
+    public static final String POST = "post";
+    // 直列化・gzip 済みの投稿本文 (key : postId)
+    public static final String POST_BODY = "postBody";
+
+    // 本文の大きさは投稿ごとに桁が違うので、postBody だけは件数ではなくバイト数で上限を決める
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> postBodyCacheCustomizer(
+            @Value("${myblog.cache.post-body.max-size:64MB}") DataSize maxSize,
+            @Value("${myblog.cache.post-body.expire-after-write:10m}") Duration expireAfterWrite) {
+        return cacheManager -> cacheManager.registerCustomCache(POST_BODY, Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Object postId, Object body) -> weightOf((PostBody) body))
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build());
+    }
+
+    private static int weightOf(PostBody body) {
+        long bytes = body.json().length + (body.gzip() != null ? body.gzip().length : 0);
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+}
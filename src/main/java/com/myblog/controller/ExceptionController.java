@@ -2,6 +2,8 @@ package com.myblog.controller;
 
 import com.myblog.exception.MyBlogException;
 import com.myblog.response.ErrorResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -14,12 +16,17 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 
 @ControllerAdvice
 @Slf4j
+@RequiredArgsConstructor
 public class ExceptionController {
 
+    private final MeterRegistry meterRegistry;
+
     @ResponseBody
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ErrorResponse invalidRequestHandler(MethodArgumentNotValidException e) {
+        countError(e, 400);
+
         ErrorResponse response = ErrorResponse.builder()
                 .code("400")
                 .message("不正なリクエストです。")
@@ -36,6 +43,7 @@ public class ExceptionController {
     @ExceptionHandler(MyBlogException.class)
     public ResponseEntity<ErrorResponse> myBlogException(MyBlogException e) {
         int statusCode = e.getStatusCode();
+        countError(e, statusCode);
 
         ErrorResponse body = ErrorResponse.builder()
                 .code(String.valueOf(statusCode))
@@ -48,4 +56,11 @@ public class ExceptionController {
 
         return response;
     }
+
+    private void countError(Exception e, int statusCode) {
+        meterRegistry.counter("myblog.errors",
+                        "exception", e.getClass().getSimpleName(),
+                        "status", String.valueOf(statusCode))
+                .increment();
+    }
 }
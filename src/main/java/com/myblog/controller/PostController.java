@@ -1,43 +1,162 @@
 package com.myblog.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myblog.cache.PostBody;
+import com.myblog.domain.PostVersion;
+import com.myblog.exception.InvalidRequest;
 import com.myblog.request.PostCreate;
+import com.myblog.request.PostCursor;
+import com.myblog.request.PostETag;
 import com.myblog.request.PostEdit;
 import com.myblog.request.PostSearch;
-import com.myblog.response.PostResponse;
+import com.myblog.response.PostBatchResponse;
+import com.myblog.response.PostIngestResponse;
+import com.myblog.response.PostListETag;
+import com.myblog.response.PostMultiResponse;
+import com.myblog.response.PostSummaryResponse;
 import com.myblog.service.PostService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+
 @RestController
 @Slf4j
 @RequiredArgsConstructor
 public class PostController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    public static final String TOTAL_PAGES_HEADER = "X-Total-Pages";
+
     private final PostService postService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/posts")
-    public void post(@RequestBody @Valid PostCreate request) {
+    public ResponseEntity<PostIngestResponse> post(@RequestBody @Valid PostCreate request) {
         request.validate();
-        postService.write(request);
+        return postService.write(request)
+                .map(accepted -> ResponseEntity.accepted()
+                        .location(URI.create("/posts/ingest/" + accepted.getTrackingId()))
+                        .body(accepted))
+                .orElseGet(() -> ResponseEntity.ok().build());
+    }
+
+    @GetMapping("/posts/ingest/{trackingId}")
+    public PostIngestResponse ingestStatus(@PathVariable String trackingId) {
+        return postService.getIngestStatus(trackingId);
+    }
+
+    @PostMapping(value = "/posts/batch", consumes = {APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE})
+    public PostBatchResponse batch(InputStream body) throws IOException {
+        // JSON 配列 / NDJSON のどちらも 1 件ずつ読み進める
+        // 途中の項目の不正は writeAll が項目ごとの失敗として返す。ここに来るのは 1 件目より前で読めなかった場合だけ
+        try (MappingIterator<PostCreate> items = objectMapper.readerFor(PostCreate.class).readValues(body)) {
+            return postService.writeAll(items);
+        } catch (JsonProcessingException e) {
+            throw InvalidRequest.INVALID_JSON;
+        }
+    }
+
+    @GetMapping(value = "/posts/export", produces = APPLICATION_NDJSON_VALUE)
+    public void export(HttpServletResponse response) throws IOException {
+        response.setContentType(APPLICATION_NDJSON_VALUE);
+        postService.export(response.getOutputStream());
     }
 
     @GetMapping("/posts/{postId}")
-    public PostResponse getOnePost(@PathVariable Long postId) {
-        return postService.getOnePost(postId);
+    public ResponseEntity<byte[]> getOnePost(@PathVariable Long postId, WebRequest webRequest,
+                                             HttpServletResponse servletResponse) {
+        // 条件付きリクエストは本文を読まずにバージョンと更新日時だけで判定する
+        if (isConditional(webRequest)) {
+            PostVersion version = postService.getVersion(postId);
+            // 304 も共有キャッシュがエンコーディングごとに保存できるよう Vary を付ける
+            servletResponse.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (webRequest.checkNotModified(PostETag.weakOf(postId, version.getVersion()), lastModifiedOf(version.getUpdatedAt()))) {
+                return null;
+            }
+        }
+
+        // 直列化・圧縮済みのバイト列をそのまま返す (Content-Encoding 付きなので Tomcat は再圧縮しない)
+        PostBody body = postService.getOnePostBody(postId);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .eTag(PostETag.weakOf(postId, body.version()));
+        long lastModified = lastModifiedOf(body.updatedAt());
+        if (lastModified > 0) {
+            response.lastModified(lastModified);
+        }
+
+        if (body.gzip() != null && acceptsGzip(webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(body.gzip());
+        }
+        return response.body(body.json());
+    }
+
+    // GET /posts?ids=1,5,9 : 複数件をまとめて取得する (一覧より優先してマッチする)
+    @GetMapping(value = "/posts", params = "ids")
+    public PostMultiResponse getPosts(@RequestParam String ids) {
+        return postService.getPosts(idsOf(ids));
     }
 
     @GetMapping("/posts")
-    public List<PostResponse> getList(@ModelAttribute PostSearch postSearch) {
-        return postService.getList(postSearch);
+    public ResponseEntity<List<PostSummaryResponse>> getList(@ModelAttribute PostSearch postSearch,
+                                                             HttpServletResponse servletResponse) throws IOException {
+        if (postSearch.isStreaming()) {
+            // 本文を読み始める前にヘッダを確定させる (ETag はページ全体が必要なので付けない)
+            // カーソルも最後の行を読むまで決まらないので付けない : 続きは最後の要素の id から after を作って読む
+            servletResponse.setContentType(APPLICATION_JSON_VALUE);
+            long totalCount = postService.getTotalCount();
+            servletResponse.setHeader(TOTAL_COUNT_HEADER, String.valueOf(totalCount));
+            servletResponse.setHeader(TOTAL_PAGES_HEADER, String.valueOf(totalPagesOf(totalCount, postSearch)));
+            postService.writeList(postSearch, servletResponse.getOutputStream());
+            return null;
+        }
+
+        List<PostSummaryResponse> posts = postService.getList(postSearch);
+
+        // 削除では最終更新日時が変わらないので、一覧は ETag のみで判定する
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(PostListETag.of(posts, PostSummaryResponse::getId, PostSummaryResponse::getUpdatedAt));
+        if (!postSearch.isKeywordSearch() && !posts.isEmpty() && posts.size() == postSearch.getLimit()) {
+            Long lastId = posts.get(posts.size() - 1).getId();
+            response.header(NEXT_CURSOR_HEADER, PostCursor.encode(lastId));
+        }
+        // 検索結果の件数は数えないので、総数は一覧のときだけ返す
+        if (!postSearch.isKeywordSearch()) {
+            long totalCount = postService.getTotalCount();
+            response.header(TOTAL_COUNT_HEADER, String.valueOf(totalCount))
+                    .header(TOTAL_PAGES_HEADER, String.valueOf(totalPagesOf(totalCount, postSearch)));
+        }
+        return response.body(posts);
     }
 
     @PatchMapping("/posts/{postId}")
-    public void edit(@PathVariable Long postId, @RequestBody @Valid PostEdit request) {
+    public void edit(@PathVariable Long postId, @RequestBody @Valid PostEdit request,
+                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         request.validate();
+        if (ifMatch != null) {
+            request = request.withVersion(PostETag.versionOf(postId, ifMatch));
+        }
         postService.edit(postId, request);
     }
 
@@ -45,4 +164,56 @@ public class PostController {
     public void delete(@PathVariable Long postId) {
         postService.delete(postId);
     }
+
+    private static boolean isConditional(WebRequest webRequest) {
+        return webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || webRequest.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    // ids=1,5,9 (ids=1&ids=5 もカンマ区切りで渡ってくる) : 数値でない id は Spring 既定の 400 ではなく ErrorResponse で返す
+    private static List<Long> idsOf(String ids) {
+        List<Long> postIds = new ArrayList<>();
+        for (String id : ids.split(",")) {
+            if (id.isBlank()) {
+                continue;
+            }
+            try {
+                postIds.add(Long.parseLong(id.trim()));
+            } catch (NumberFormatException e) {
+                throw InvalidRequest.INVALID_IDS;
+            }
+        }
+        return postIds;
+    }
+
+    private static long totalPagesOf(long totalCount, PostSearch postSearch) {
+        int limit = postSearch.getLimit();
+        return limit > 0 ? (totalCount + limit - 1) / limit : 0;
+    }
+
+    // Accept-Encoding: gzip, deflate, br / gzip;q=0 は拒否
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                if (parts[i].trim().matches("q=0(\\.0*)?")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static long lastModifiedOf(Instant updatedAt) {
+        // 更新日時を持たない既存データは Last-Modified を返さない
+        return updatedAt != null && updatedAt.isAfter(Instant.EPOCH) ? updatedAt.toEpochMilli() : -1;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.myblog.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * プロセス全体で共有するキャッシュを埋める読み込みを primary に固定する
+ * evict 直後にレプリカの遅延した行でキャッシュを埋め直すと、書いた本人を含む全員に古い値が返り続けるため
+ * 接続は最初の SQL の実行時に取得されるので、トランザクションの内側で呼んでも効く
+ */
+public final class PrimaryReads {
+
+    private static final ThreadLocal<Boolean> FORCED = new ThreadLocal<>();
+
+    private PrimaryReads() {
+    }
+
+    public static <T> T call(Supplier<T> supplier) {
+        if (FORCED.get() != null) {
+            return supplier.get();
+        }
+        FORCED.set(Boolean.TRUE);
+        try {
+            return supplier.get();
+        } finally {
+            FORCED.remove();
+        }
+    }
+
+    static boolean isForced() {
+        return FORCED.get() != null;
+    }
+}
@@ -0,0 +1,65 @@
+package com.myblog.datasource;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.util.WebUtils;
+
+import java.time.Duration;
+
+/**
+ * 書き込んだクライアントの読み込みを一定時間 primary に固定する (レプリカの遅延で自分の書き込みが見えなくなるのを防ぐ)
+ * 同じリクエスト内はリクエスト属性、以降のリクエストは Cookie で判定する
+ */
+@Component
+public class PrimaryStickiness {
+
+    public static final String COOKIE = "myblog-primary";
+    private static final String ATTRIBUTE = PrimaryStickiness.class.getName() + ".written";
+
+    private final Duration window;
+
+    public PrimaryStickiness(@Value("${myblog.datasource.replica.sticky-window:5s}") Duration window) {
+        this.window = window;
+    }
+
+    public boolean isSticky() {
+        ServletRequestAttributes attributes = currentRequest();
+        if (attributes == null) {
+            return false;
+        }
+        return attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null
+                || WebUtils.getCookie(attributes.getRequest(), COOKIE) != null;
+    }
+
+    public void markWritten() {
+        ServletRequestAttributes attributes = currentRequest();
+        if (attributes == null || attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null) {
+            return;
+        }
+        attributes.setAttribute(ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+
+        HttpServletResponse response = attributes.getResponse();
+        if (response != null && !response.isCommitted()) {
+            ResponseCookie cookie = ResponseCookie.from(COOKIE, "1")
+                    .maxAge(window)
+                    .path("/")
+                    .httpOnly(true)
+                    .sameSite("Lax")
+                    .build();
+            response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+        }
+    }
+
+    private static ServletRequestAttributes currentRequest() {
+        // スケジュールジョブや write-behind のスレッドにはリクエストがない
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                ? attributes
+                : null;
+    }
+}
@@ -0,0 +1,61 @@
+package com.myblog.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 読み取り専用トランザクションをレプリカへ、それ以外を primary へ振り分ける
+ * トランザクション開始後に接続を取得させるため LazyConnectionDataSourceProxy で包んで使う
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica-";
+
+    private final List<DataSource> replicas;
+    private final PrimaryStickiness primaryStickiness;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, PrimaryStickiness primaryStickiness) {
+        this.replicas = List.copyOf(replicas);
+        this.primaryStickiness = primaryStickiness;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(REPLICA + i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        if (!readOnly && TransactionSynchronizationManager.isActualTransactionActive()) {
+            primaryStickiness.markWritten();
+        }
+        if (!readOnly || replicas.isEmpty() || PrimaryReads.isForced() || primaryStickiness.isSticky()) {
+            return PRIMARY;
+        }
+        return REPLICA + Math.floorMod(next.getAndIncrement(), replicas.size());
+    }
+
+    @Override
+    public void destroy() {
+        // primary は Bean として閉じられるので、ここで作ったレプリカの pool だけを閉じる
+        replicas.forEach(replica -> {
+            if (replica instanceof HikariDataSource hikari) {
+                hikari.close();
+            }
+        });
+    }
+}
@@ -1,29 +1,60 @@
 package com.myblog.domain;
 
+import com.myblog.render.PostRenderer;
+import com.myblog.render.RenderedContent;
+import com.myblog.storage.ContentConverter;
 import jakarta.persistence.*;
 import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
 @Entity
 @NoArgsConstructor(access = AccessLevel.PUBLIC)
 @Getter
 public class Post {
 
+    public static final int EXCERPT_LENGTH = PostExcerpt.LENGTH;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     private String title;
 
+    // 閾値以上の本文は圧縮して保存する
     @Lob
+    @Convert(converter = ContentConverter.class)
     private String content;
 
+    // 書き込み時に描画した HTML : 読み込みのたびに Markdown を解析しない
+    @Lob
+    @Convert(converter = ContentConverter.class)
+    private String html;
+
+    // html を描画したレンダラのバージョン (描画導入前の行は null)
+    private Integer renderVersion;
+
+    // 一覧表示用の抜粋 (LOB を読まずに一覧を返すため)
+    @Column(length = EXCERPT_LENGTH)
+    private String excerpt;
+
+    private Instant updatedAt;
+
+    // 楽観ロック : 編集時に期待するバージョンと一致しなければ 409
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint not null default 0")
+    private Long version;
+
     @Builder
     public Post(String title, String content) {
         this.title = title;
         this.content = content;
+        render(PostRenderer.render(content));
+        this.updatedAt = now();
     }
 
     public PostEditor.PostEditorBuilder toEditor() {
@@ -35,5 +66,18 @@ public class Post {
     public void edit(PostEditor postEditor) {
         this.title = postEditor.getTitle();
         this.content = postEditor.getContent();
+        render(postEditor.getRendered());
+        this.updatedAt = now();
+    }
+
+    private void render(RenderedContent rendered) {
+        this.html = rendered.html();
+        this.excerpt = rendered.excerpt();
+        this.renderVersion = PostRenderer.VERSION;
+    }
+
+    // ETag / Last-Modified はミリ秒単位で比較するので DB の丸めと揃える
+    public static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MILLIS);
     }
 }
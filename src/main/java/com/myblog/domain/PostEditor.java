@@ -1,5 +1,7 @@
 package com.myblog.domain;
 
+import com.myblog.render.PostRenderer;
+import com.myblog.render.RenderedContent;
 import lombok.Builder;
 import lombok.Getter;
 
@@ -8,11 +10,14 @@ public class PostEditor {
 
     private final String title;
     private final String content;
+    // content が null (変更しない) の場合は html / excerpt も null
+    private final RenderedContent rendered;
 
     @Builder
     public PostEditor(String title, String content) {
         this.title = title;
         this.content = content;
+        this.rendered = PostRenderer.render(content);
     }
 
     public static PostEditorBuilder builder() {
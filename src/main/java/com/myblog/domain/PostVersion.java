@@ -0,0 +1,20 @@
+package com.myblog.domain;
+
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * 本文を読まずに取得できる投稿のバージョン情報 (ETag / Last-Modified 用)
+ */
+@Getter
+public class PostVersion {
+
+    private final Long version;
+    private final Instant updatedAt;
+
+    public PostVersion(Long version, Instant updatedAt) {
+        this.version = version;
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,228 @@
+package com.myblog.ingest;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.myblog.domain.Post;
+import com.myblog.exception.IngestQueueFull;
+import com.myblog.response.PostIngestResponse;
+import com.myblog.service.PostWriter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 投稿の write-behind キュー
+ * リクエストスレッドはキューに積むだけで返り、1 本の書き込みスレッドがまとめて INSERT する
+ * キューが一杯の場合は一定時間待ち、それでも空かなければ 503 を返す (backpressure)
+ * まとめての書き込みが失敗した場合は間隔を空けてやり直し、それでも失敗すれば 1 件ずつ書いて失敗した投稿だけを FAILED にする
+ */
+@Slf4j
+@Component
+public class PostIngestQueue implements SmartLifecycle {
+
+    // Web サーバーの停止 (graceful shutdown) より後に止まり、DataSource の破棄より前に書き切る
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+    private static final long POLL_MILLIS = 200;
+
+    private final PostWriter postWriter;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration offerTimeout;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+
+    private final BlockingQueue<Pending> queue;
+    private final Timer flushTimer;
+
+    // trackingId -> 処理状況 : 一定時間で消える
+    private final Cache<String, PostIngestResponse> statuses = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .build();
+
+    private volatile boolean accepting;
+    private volatile boolean running;
+    private Thread writer;
+
+    public PostIngestQueue(PostWriter postWriter,
+                           MeterRegistry meterRegistry,
+                           @Value("${myblog.ingest.write-behind:false}") boolean enabled,
+                           @Value("${myblog.ingest.queue-size:10000}") int queueSize,
+                           @Value("${myblog.ingest.batch-size:500}") int batchSize,
+                           @Value("${myblog.ingest.offer-timeout:100ms}") Duration offerTimeout,
+                           @Value("${myblog.ingest.retry.max-attempts:3}") int maxAttempts,
+                           @Value("${myblog.ingest.retry.backoff:200ms}") Duration retryBackoff) {
+        this.postWriter = postWriter;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.offerTimeout = offerTimeout;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+
+        Gauge.builder("myblog.posts.ingest.queue", queue, BlockingQueue::size)
+                .description("書き込み待ちの投稿数")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("myblog.posts.ingest.flush")
+                .description("キューからまとめて書き込むのにかかった時間")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public PostIngestResponse submit(Post post) {
+        String trackingId = UUID.randomUUID().toString();
+        PostIngestResponse pending = PostIngestResponse.pending(trackingId);
+        statuses.put(trackingId, pending);
+
+        boolean offered = false;
+        if (accepting) {
+            try {
+                offered = queue.offer(new Pending(trackingId, post), offerTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (!offered) {
+            statuses.invalidate(trackingId);
+            throw new IngestQueueFull();
+        }
+        return pending;
+    }
+
+    public Optional<PostIngestResponse> getStatus(String trackingId) {
+        return Optional.ofNullable(statuses.getIfPresent(trackingId));
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        accepting = true;
+        running = true;
+        writer = new Thread(this::run, "post-ingest-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        // 新規の受付を止め、積まれている分を書き切ってから終了する
+        accepting = false;
+        running = false;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // 書き込みスレッドの終了と入れ違いに積まれた分
+        List<Pending> rest = new ArrayList<>();
+        while (queue.drainTo(rest, batchSize) > 0) {
+            flush(rest);
+            rest.clear();
+        }
+        log.info("post ingest queue drained");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                // 停止は running で判断するので、残りを書き切るまで続ける
+                log.warn("post ingest writer interrupted");
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        List<Post> posts = new ArrayList<>(batch.size());
+        batch.forEach(pending -> posts.add(pending.post()));
+
+        try {
+            List<Long> ids = flushTimer.recordCallable(() -> writeWithRetry(posts));
+            for (int i = 0; i < ids.size(); i++) {
+                String trackingId = batch.get(i).trackingId();
+                statuses.put(trackingId, PostIngestResponse.created(trackingId, ids.get(i)));
+            }
+        } catch (Exception e) {
+            // 1 件の不正な行でまとめて捨てないよう、1 件ずつ書いて失敗する投稿を切り分ける
+            log.warn("post ingest flush failed, writing one by one : {} posts", batch.size(), e);
+            batch.forEach(this::writeOne);
+        }
+    }
+
+    private List<Long> writeWithRetry(List<Post> posts) throws InterruptedException {
+        long backoff = retryBackoff.toMillis();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return postWriter.writeBatch(posts);
+            } catch (DataIntegrityViolationException e) {
+                // 行そのものが不正なので、やり直しても成功しない
+                throw e;
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.warn("post ingest flush failed ({}/{}), retrying in {}ms : {}", attempt, maxAttempts, backoff, e.toString());
+                Thread.sleep(backoff);
+                backoff *= 2;
+            }
+        }
+    }
+
+    private void writeOne(Pending pending) {
+        String trackingId = pending.trackingId();
+        try {
+            Long id = postWriter.writeBatch(List.of(pending.post())).get(0);
+            statuses.put(trackingId, PostIngestResponse.created(trackingId, id));
+        } catch (RuntimeException e) {
+            log.error("post ingest failed : {}", trackingId, e);
+            statuses.put(trackingId, PostIngestResponse.failed(trackingId));
+        }
+    }
+
+    private record Pending(String trackingId, Post post) {
+    }
+}
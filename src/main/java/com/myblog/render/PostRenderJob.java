@@ -0,0 +1,126 @@
+package com.myblog.render;
+
+import com.myblog.cache.RecentPostCache;
+import com.myblog.config.CacheConfig;
+import com.myblog.domain.Post;
+import com.myblog.storage.ContentConverter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * 描画導入前の投稿や、古いバージョンのレンダラで描画した投稿を少しずつ描き直す
+ * 表示される HTML が変わるのでバージョンと更新日時を進め (ETag / Last-Modified が変わる)、途中で編集された行は編集時の描画を優先する
+ * render_version には索引がないので、再起動後は先頭から走査せず描画が必要な行の最小 id から再開する
+ */
+@Slf4j
+@Component
+public class PostRenderJob {
+
+    private static final String CANDIDATE = "(render_version is null or render_version <> ?)";
+    private static final String RESUME_SQL = "select min(id) from post where " + CANDIDATE;
+    private static final String SELECT_SQL = "select id, content, version from post"
+            + " where id > ? and " + CANDIDATE
+            + " order by id limit ?";
+    // 一覧の ETag と Last-Modified は updated_at から作るので、表示が変わる行は updated_at も進める
+    private static final String UPDATE_SQL = "update post set html = ?, excerpt = ?, render_version = ?,"
+            + " updated_at = ?, version = version + 1"
+            + " where id = ? and version = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ContentConverter contentConverter;
+    private final CacheManager cacheManager;
+    private final RecentPostCache recentPostCache;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Counter rendered;
+
+    // 次に読む位置 : 起動後の最初の実行で決める (null)。最後まで進んだら止まる (レンダラのバージョンを上げて再起動すると古い行から描き直す)
+    private Long lastId;
+    private boolean done;
+
+    public PostRenderJob(JdbcTemplate jdbcTemplate,
+                         ContentConverter contentConverter,
+                         CacheManager cacheManager,
+                         RecentPostCache recentPostCache,
+                         MeterRegistry meterRegistry,
+                         @Value("${myblog.render.job.enabled:true}") boolean enabled,
+                         @Value("${myblog.render.job.batch-size:200}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.contentConverter = contentConverter;
+        this.cacheManager = cacheManager;
+        this.recentPostCache = recentPostCache;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.rendered = meterRegistry.counter("myblog.render.job.rows");
+    }
+
+    @Scheduled(initialDelayString = "${myblog.render.job.initial-delay:1m}",
+            fixedDelayString = "${myblog.render.job.interval:10s}")
+    public void renderBatch() {
+        if (!enabled || done) {
+            return;
+        }
+        if (lastId == null) {
+            Long first = jdbcTemplate.queryForObject(RESUME_SQL, Long.class, PostRenderer.VERSION);
+            if (first == null) {
+                done = true;
+                log.info("post rendering finished : no rows to render for renderer version {}", PostRenderer.VERSION);
+                return;
+            }
+            lastId = first - 1;
+        }
+
+        List<Row> rows = jdbcTemplate.query(SELECT_SQL,
+                (rs, rowNum) -> new Row(rs.getLong("id"),
+                        contentConverter.convertToEntityAttribute(rs.getString("content")),
+                        rs.getLong("version")),
+                lastId, PostRenderer.VERSION, batchSize);
+
+        int updated = 0;
+        for (Row row : rows) {
+            RenderedContent content = PostRenderer.render(row.content());
+            // JPA と同じく UTC の datetime として書き込む
+            LocalDateTime updatedAt = LocalDateTime.ofInstant(Post.now(), ZoneOffset.UTC);
+            if (jdbcTemplate.update(UPDATE_SQL, contentConverter.convertToDatabaseColumn(content.html()),
+                    content.excerpt(), PostRenderer.VERSION, updatedAt, row.id(), row.version()) > 0) {
+                evict(row.id());
+                updated++;
+            }
+            lastId = row.id();
+        }
+        rendered.increment(updated);
+
+        // 抜粋が変わるので一覧のキャッシュも読み直させる
+        if (updated > 0) {
+            recentPostCache.clear();
+        }
+
+        if (rows.size() < batchSize) {
+            done = true;
+            log.info("post rendering finished : renderer version {}", PostRenderer.VERSION);
+        }
+    }
+
+    private void evict(Long postId) {
+        for (String name : List.of(CacheConfig.POST, CacheConfig.POST_BODY)) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.evict(postId);
+            }
+        }
+    }
+
+    private record Row(long id, String content, long version) {
+    }
+}
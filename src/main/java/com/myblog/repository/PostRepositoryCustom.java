@@ -1,11 +1,35 @@
 package com.myblog.repository;
 
 import com.myblog.domain.Post;
+import com.myblog.domain.PostEditor;
+import com.myblog.domain.PostVersion;
 import com.myblog.request.PostSearch;
+import com.myblog.response.PostExportResponse;
+import com.myblog.response.PostResponse;
+import com.myblog.response.PostSummaryResponse;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface PostRepositoryCustom {
 
-    List<Post> getList(PostSearch postSearch);
+    List<PostSummaryResponse> getList(PostSearch postSearch);
+
+    List<PostSummaryResponse> getListChunk(PostSearch postSearch, Long afterId, int limit);
+
+    List<PostSummaryResponse> getSummaries(List<Long> postIds);
+
+    List<PostResponse> getPosts(List<Long> postIds);
+
+    Optional<PostVersion> findVersion(Long postId);
+
+    List<Long> insertAll(List<Post> posts);
+
+    long updatePost(Long postId, PostEditor postEditor, Long expectedVersion, Instant updatedAt);
+
+    long deletePost(Long postId);
+
+    Stream<PostExportResponse> streamAll();
 }
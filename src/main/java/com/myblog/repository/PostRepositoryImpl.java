@@ -1,25 +1,226 @@
 package com.myblog.repository;
 
 import com.myblog.domain.Post;
+import com.myblog.domain.PostEditor;
+import com.myblog.domain.PostVersion;
+import com.myblog.render.PostRenderer;
 import com.myblog.request.PostSearch;
+import com.myblog.response.PostExportResponse;
+import com.myblog.response.PostResponse;
+import com.myblog.response.PostSummaryResponse;
+import com.myblog.storage.ContentConverter;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.myblog.domain.QPost.post;
 
 @RequiredArgsConstructor
 public class PostRepositoryImpl implements PostRepositoryCustom {
 
+    private static final String INSERT_SQL =
+            "insert into post (title, content, html, render_version, excerpt, updated_at, version)"
+                    + " values (?, ?, ?, ?, ?, ?, 0)";
+
+    private static final int EXPORT_FETCH_SIZE = 500;
+
     private final JPAQueryFactory jpaQueryFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final ContentConverter contentConverter;
 
     @Override
-    public List<Post> getList(PostSearch postSearch) {
-        return jpaQueryFactory.selectFrom(post)
-                .limit(postSearch.getSize())
-                .offset(postSearch.getOffset())
-                .orderBy(post.id.desc())
+    @Transactional(readOnly = true)
+    public List<PostSummaryResponse> getList(PostSearch postSearch) {
+        return page(selectSummary(), postSearch, 0)
+                .limit(postSearch.getLimit())
                 .fetch();
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PostSummaryResponse> getListChunk(PostSearch postSearch, Long afterId, int limit) {
+        // 最初のチャンクはページの先頭から、以降は前のチャンクの最後の id から PK で seek する
+        JPAQuery<PostSummaryResponse> query = afterId == null
+                ? page(selectSummary(), postSearch, 0)
+                : selectSummary().where(post.id.lt(afterId)).orderBy(post.id.desc());
+        return query.limit(limit).fetch();
+    }
+
+    private static <T> JPAQuery<T> page(JPAQuery<T> query, PostSearch postSearch, long skip) {
+        query.orderBy(post.id.desc());
+
+        if (postSearch.isCursorMode()) {
+            // keyset : 前ページまでの行を読み飛ばさずに PK で seek する
+            query.where(post.id.lt(postSearch.getAfterId()));
+        } else {
+            skip += postSearch.getOffset();
+        }
+        if (skip > 0) {
+            query.offset(skip);
+        }
+        return query;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PostSummaryResponse> getSummaries(List<Long> postIds) {
+        if (postIds.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, PostSummaryResponse> found = selectSummary()
+                .where(post.id.in(postIds))
+                .fetch()
+                .stream()
+                .collect(Collectors.toMap(PostSummaryResponse::getId, Function.identity()));
+
+        // 渡された id の順序を保つ
+        return postIds.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PostResponse> getPosts(List<Long> postIds) {
+        if (postIds.isEmpty()) {
+            return List.of();
+        }
+
+        // 順序は呼び出し側で揃える
+        // 6 引数のコンストラクタはタイトルを 10 文字に切り詰めるので、エンティティから全文のまま詰め替える
+        return jpaQueryFactory
+                .selectFrom(post)
+                .where(post.id.in(postIds))
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .fetch().stream()
+                .map(PostResponse::new)
+                .toList();
+    }
+
+    private JPAQuery<PostSummaryResponse> selectSummary() {
+        // excerpt カラム追加前の行は SQL 側で先頭だけ切り出す
+        return jpaQueryFactory
+                .select(Projections.constructor(PostSummaryResponse.class,
+                        post.id,
+                        post.title,
+                        post.excerpt.coalesce(post.content.substring(0, Post.EXCERPT_LENGTH)),
+                        post.updatedAt))
+                .from(post);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<PostVersion> findVersion(Long postId) {
+        // 本文 (LOB) を読まずにバージョンと更新日時だけを取得する
+        Tuple row = jpaQueryFactory.select(post.version, post.updatedAt)
+                .from(post)
+                .where(post.id.eq(postId))
+                .fetchOne();
+
+        if (row == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new PostVersion(row.get(post.version), row.get(post.updatedAt)));
+    }
+
+    @Override
+    @Transactional
+    public List<Long> insertAll(List<Post> posts) {
+        // IDENTITY 採番では Hibernate の insert batching が効かないので JDBC で直接 batch する
+        return jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (Post p : posts) {
+                    ps.setString(1, p.getTitle());
+                    // JPA を通らないので保存形式への変換もここで行う
+                    ps.setString(2, contentConverter.convertToDatabaseColumn(p.getContent()));
+                    ps.setString(3, contentConverter.convertToDatabaseColumn(p.getHtml()));
+                    ps.setInt(4, p.getRenderVersion());
+                    ps.setString(5, p.getExcerpt());
+                    // JPA と同じく UTC の datetime として書き込む (Timestamp は JVM のタイムゾーンで変換される)
+                    ps.setObject(6, LocalDateTime.ofInstant(p.getUpdatedAt(), ZoneOffset.UTC));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                List<Long> ids = new ArrayList<>(posts.size());
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getLong(1));
+                    }
+                }
+                return ids;
+            }
+        });
+    }
+
+    @Override
+    public long updatePost(Long postId, PostEditor postEditor, Long expectedVersion, Instant updatedAt) {
+        // 読み込み + dirty checking をせず、null でない項目だけを 1 回の UPDATE で書き込む
+        JPAUpdateClause update = jpaQueryFactory.update(post)
+                .set(post.updatedAt, updatedAt)
+                .set(post.version, post.version.add(1L))
+                .where(post.id.eq(postId));
+
+        // 行ロックを持ち越さず、UPDATE の条件でバージョンを検査する
+        if (expectedVersion != null) {
+            update.where(post.version.eq(expectedVersion));
+        }
+
+        if (postEditor.getTitle() != null) {
+            update.set(post.title, postEditor.getTitle());
+        }
+        if (postEditor.getContent() != null) {
+            update.set(post.content, postEditor.getContent());
+            update.set(post.html, postEditor.getRendered().html());
+            update.set(post.renderVersion, PostRenderer.VERSION);
+            update.set(post.excerpt, postEditor.getRendered().excerpt());
+        }
+        return update.execute();
+    }
+
+    @Override
+    public long deletePost(Long postId) {
+        return jpaQueryFactory.delete(post)
+                .where(post.id.eq(postId))
+                .execute();
+    }
+
+    @Override
+    public Stream<PostExportResponse> streamAll() {
+        // DTO で読むので永続性コンテキストにエンティティが溜まらない
+        return jpaQueryFactory
+                .select(Projections.constructor(PostExportResponse.class,
+                        post.id,
+                        post.title,
+                        post.content,
+                        post.updatedAt))
+                .from(post)
+                .orderBy(post.id.asc())
+                .setHint(HibernateHints.HINT_FETCH_SIZE, EXPORT_FETCH_SIZE)
+                .stream();
+    }
 }
@@ -1,26 +0,0 @@
-package com.myblog.request;
-
-import lombok.Builder;
-import lombok.Getter;
-import lombok.Setter;
-
-import static java.lang.Math.*;
-
-@Builder
-@Getter
-@Setter
-public class PostSearch {
-
-    private static final int MAX_SIZE = 2000;
-
-    @Builder.Default
-    private Integer page = 1;
-
-    @Builder.Default
-    private Integer size = 10;
-
-    public long getOffset() {
-        return (long)(max(1, page) - 1) * min(MAX_SIZE, size);
-    }
-
-}
@@ -0,0 +1,35 @@
+package com.myblog.response;
+
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {
+ *     "created": 2,
+ *     "failures": {
+ *         "1": {
+ *             "title": "タイトルを入力してください。"
+ *         }
+ *     }
+ * }
+ * 保存に失敗したチャンクの項目は "body": "保存に失敗しました。" として返す (それより前のチャンクはコミット済み)
+ * JSON が途中で壊れている場合は、読めなかった位置の項目を失敗として返し、以降は読まない
+ */
+@Getter
+public class PostBatchResponse {
+
+    private int created;
+
+    // key : リクエスト内の位置 (0 始まり)
+    private final Map<Integer, Map<String, String>> failures = new LinkedHashMap<>();
+
+    public void addCreated(int count) {
+        this.created += count;
+    }
+
+    public void addFailure(int index, Map<String, String> validation) {
+        this.failures.put(index, validation);
+    }
+}
@@ -0,0 +1,24 @@
+package com.myblog.response;
+
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * エクスポート (NDJSON) の 1 行
+ */
+@Getter
+public class PostExportResponse {
+
+    private final Long id;
+    private final String title;
+    private final String content;
+    private final Instant updatedAt;
+
+    public PostExportResponse(Long id, String title, String content, Instant updatedAt) {
+        this.id = id;
+        this.title = title;
+        this.content = content;
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,41 @@
+package com.myblog.response;
+
+import lombok.Getter;
+
+/**
+ * {
+ *     "trackingId": "0b6c...",
+ *     "status": "CREATED",
+ *     "postId": 12
+ * }
+ */
+@Getter
+public class PostIngestResponse {
+
+    public enum Status {
+        PENDING, CREATED, FAILED
+    }
+
+    private final String trackingId;
+    private final Status status;
+    // CREATED の場合のみ
+    private final Long postId;
+
+    private PostIngestResponse(String trackingId, Status status, Long postId) {
+        this.trackingId = trackingId;
+        this.status = status;
+        this.postId = postId;
+    }
+
+    public static PostIngestResponse pending(String trackingId) {
+        return new PostIngestResponse(trackingId, Status.PENDING, null);
+    }
+
+    public static PostIngestResponse created(String trackingId, Long postId) {
+        return new PostIngestResponse(trackingId, Status.CREATED, postId);
+    }
+
+    public static PostIngestResponse failed(String trackingId) {
+        return new PostIngestResponse(trackingId, Status.FAILED, null);
+    }
+}
@@ -0,0 +1,27 @@
+package com.myblog.response;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * {
+ *     "posts": [
+ *         { "id": 1, "title": "...", "content": "...", "version": 0 },
+ *         { "id": 9, "title": "...", "content": "...", "version": 2 }
+ *     ],
+ *     "missing": [5]
+ * }
+ */
+@Getter
+public class PostMultiResponse {
+
+    // リクエストされた id の順
+    private final List<PostResponse> posts;
+    private final List<Long> missing;
+
+    public PostMultiResponse(List<PostResponse> posts, List<Long> missing) {
+        this.posts = posts;
+        this.missing = missing;
+    }
+}
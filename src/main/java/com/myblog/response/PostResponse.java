@@ -1,9 +1,12 @@
 package com.myblog.response;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.myblog.domain.Post;
 import lombok.Builder;
 import lombok.Getter;
 
+import java.time.Instant;
+
 @Getter
 @Builder
 public class PostResponse {
@@ -11,17 +14,30 @@ public class PostResponse {
     private final Long id;
     private final String title;
     private final String content;
+    // 書き込み時に描画した HTML (描画導入前の投稿は再描画ジョブが処理するまで null)
+    private final String html;
+    private final Long version;
+
+    // Last-Modified 用
+    @JsonIgnore
+    private final Instant updatedAt;
 
     // Constructor Overloading
     public PostResponse(Post post) {
         this.id = post.getId();
         this.title = post.getTitle();
         this.content = post.getContent();
+        this.html = post.getHtml();
+        this.version = post.getVersion();
+        this.updatedAt = post.getUpdatedAt();
     }
 
-    public PostResponse(Long id, String title, String content) {
+    public PostResponse(Long id, String title, String content, String html, Long version, Instant updatedAt) {
         this.id = id;
         this.title = title.substring(0, Math.min(title.length(), 10));
         this.content = content;
+        this.html = html;
+        this.version = version;
+        this.updatedAt = updatedAt;
     }
 }
@@ -0,0 +1,249 @@
+package com.myblog.search;
+
+import com.myblog.repository.PostRepository;
+import com.myblog.response.PostExportResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * タイトル・本文のメモリ上の転置インデックス (BM25 でランキング)
+ * 検索コストは全件数ではなく、クエリ中で最も出現の少ない語の posting 数に比例する
+ */
+@Slf4j
+@Component
+public class PostSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITLE_WEIGHT = 3;
+
+    private final PostRepository postRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (postId -> term frequency)
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    // postId -> タイトル・本文ごとの語の出現数 : 部分更新・削除時に posting を取り除くため
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final Map<Long, Integer> lengths = new HashMap<>();
+    private long totalLength;
+
+    // 再構築中に更新・削除された id はスナップショットより新しいので再構築側で上書きしない
+    private Set<Long> touchedDuringRebuild;
+
+    public PostSearchIndex(PostRepository postRepository) {
+        this.postRepository = postRepository;
+    }
+
+    @Transactional(readOnly = true)
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            lengths.clear();
+            totalLength = 0;
+            touchedDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        int count = 0;
+        try (Stream<PostExportResponse> posts = postRepository.streamAll()) {
+            Iterator<PostExportResponse> iterator = posts.iterator();
+            while (iterator.hasNext()) {
+                PostExportResponse post = iterator.next();
+                Document document = new Document(frequencies(post.getTitle()), frequencies(post.getContent()));
+
+                lock.writeLock().lock();
+                try {
+                    if (!touchedDuringRebuild.contains(post.getId())) {
+                        put(post.getId(), document);
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                count++;
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                touchedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("search index rebuilt : {} posts", count);
+    }
+
+    /**
+     * null のフィールドは既存の内容を引き継ぐ
+     */
+    public void index(Long postId, String title, String content) {
+        Map<String, Integer> titleFrequencies = title != null ? frequencies(title) : null;
+        Map<String, Integer> contentFrequencies = content != null ? frequencies(content) : null;
+
+        lock.writeLock().lock();
+        try {
+            markTouched(postId);
+            Document previous = delete(postId);
+            if (titleFrequencies == null) {
+                titleFrequencies = previous != null ? previous.title() : Map.of();
+            }
+            if (contentFrequencies == null) {
+                contentFrequencies = previous != null ? previous.content() : Map.of();
+            }
+            put(postId, new Document(titleFrequencies, contentFrequencies));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long postId) {
+        lock.writeLock().lock();
+        try {
+            markTouched(postId);
+            delete(postId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            lengths.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * すべての語を含む投稿をスコア順に返す
+     */
+    public List<Long> search(String query, long offset, int limit) {
+        Set<String> terms = new LinkedHashSet<>(Tokenizer.tokenize(query));
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Map<Long, Integer>> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Map<Long, Integer> list = postings.get(term);
+                if (list == null) {
+                    return List.of();
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(Map::size));
+
+            int n = documents.size();
+            double avgLength = (double) totalLength / n;
+            long wanted = offset + limit;
+
+            // スコアの低い順に並ぶ heap で上位 (offset + limit) 件だけ保持する
+            PriorityQueue<Hit> top = new PriorityQueue<>(Comparator.comparingDouble(Hit::score)
+                    .thenComparing(Hit::postId, Comparator.reverseOrder()));
+
+            candidates:
+            for (Map.Entry<Long, Integer> candidate : lists.get(0).entrySet()) {
+                Long postId = candidate.getKey();
+                int length = lengths.get(postId);
+                double score = 0;
+                for (Map<Long, Integer> list : lists) {
+                    Integer tf = list.get(postId);
+                    if (tf == null) {
+                        continue candidates;
+                    }
+                    double idf = Math.log(1 + (n - list.size() + 0.5) / (list.size() + 0.5));
+                    score += idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / avgLength));
+                }
+
+                top.offer(new Hit(postId, score));
+                if (top.size() > wanted) {
+                    top.poll();
+                }
+            }
+
+            List<Long> ranked = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                ranked.add(top.poll().postId());
+            }
+            Collections.reverse(ranked);
+
+            if (offset >= ranked.size()) {
+                return List.of();
+            }
+            return ranked.subList((int) offset, ranked.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static Map<String, Integer> frequencies(String text) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : Tokenizer.tokenizeForIndex(text)) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        return frequencies;
+    }
+
+    private void markTouched(Long postId) {
+        if (touchedDuringRebuild != null) {
+            touchedDuringRebuild.add(postId);
+        }
+    }
+
+    private void put(Long postId, Document document) {
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : document.combined().entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), t -> new HashMap<>()).put(postId, entry.getValue());
+            length += entry.getValue();
+        }
+        documents.put(postId, document);
+        lengths.put(postId, length);
+        totalLength += length;
+    }
+
+    private Document delete(Long postId) {
+        Document document = documents.remove(postId);
+        if (document == null) {
+            return null;
+        }
+        document.combined().keySet().forEach(term -> {
+            Map<Long, Integer> list = postings.get(term);
+            list.remove(postId);
+            if (list.isEmpty()) {
+                postings.remove(term);
+            }
+        });
+        totalLength -= lengths.remove(postId);
+        return document;
+    }
+
+    private record Document(Map<String, Integer> title, Map<String, Integer> content) {
+
+        // タイトルの語は本文より重く数える
+        Map<String, Integer> combined() {
+            Map<String, Integer> combined = new HashMap<>(content);
+            title.forEach((term, tf) -> combined.merge(term, tf * TITLE_WEIGHT, Integer::sum));
+            return combined;
+        }
+    }
+
+    private record Hit(Long postId, double score) {
+    }
+}
@@ -0,0 +1,82 @@
+package com.myblog.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 英数字は単語単位、日本語 (漢字・ひらがな・カタカナ) は文字 bi-gram に分割する
+ * 索引側は 1 文字の検索語 (「猫」など) にも一致するよう、日本語の各文字 (uni-gram) も加える
+ */
+public class Tokenizer {
+
+    private Tokenizer() {
+    }
+
+    /**
+     * 検索語の分割 : 2 文字以上の日本語は bi-gram だけにする (uni-gram まで使うと一致の条件がゆるくなる)
+     */
+    public static List<String> tokenize(String text) {
+        return tokenize(text, false);
+    }
+
+    /**
+     * 索引の分割 : 日本語は bi-gram に加えて uni-gram も出す
+     */
+    public static List<String> tokenizeForIndex(String text) {
+        return tokenize(text, true);
+    }
+
+    private static List<String> tokenize(String text, boolean withUnigrams) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        int[] codePoints = normalized.codePoints().toArray();
+
+        int i = 0;
+        while (i < codePoints.length) {
+            int start = i;
+            if (isCjk(codePoints[i])) {
+                while (i < codePoints.length && isCjk(codePoints[i])) {
+                    i++;
+                }
+                addBigrams(tokens, codePoints, start, i);
+                if (withUnigrams && i - start > 1) {
+                    for (int j = start; j < i; j++) {
+                        tokens.add(new String(codePoints, j, 1));
+                    }
+                }
+            } else if (Character.isLetterOrDigit(codePoints[i])) {
+                while (i < codePoints.length && Character.isLetterOrDigit(codePoints[i]) && !isCjk(codePoints[i])) {
+                    i++;
+                }
+                tokens.add(new String(codePoints, start, i - start));
+            } else {
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    private static void addBigrams(List<String> tokens, int[] codePoints, int start, int end) {
+        if (end - start == 1) {
+            tokens.add(new String(codePoints, start, 1));
+            return;
+        }
+        for (int i = start; i < end - 1; i++) {
+            tokens.add(new String(codePoints, i, 2));
+        }
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || codePoint == 'ー';
+    }
+}
@@ -1,73 +1,467 @@
 package com.myblog.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.myblog.cache.PostBody;
+import com.myblog.cache.PostCounter;
+import com.myblog.cache.PostIdFilter;
+import com.myblog.cache.RecentPostCache;
+import com.myblog.cache.SingleFlight;
+import com.myblog.config.CacheConfig;
+import com.myblog.datasource.PrimaryReads;
+import com.myblog.datasource.PrimaryStickiness;
 import com.myblog.domain.Post;
 import com.myblog.domain.PostEditor;
+import com.myblog.domain.PostVersion;
+import com.myblog.exception.IngestNotFound;
+import com.myblog.exception.InvalidRequest;
+import com.myblog.exception.PostConflict;
 import com.myblog.exception.PostNotFound;
+import com.myblog.ingest.PostIngestQueue;
 import com.myblog.repository.PostRepository;
 import com.myblog.request.PostCreate;
 import com.myblog.request.PostEdit;
 import com.myblog.request.PostSearch;
+import com.myblog.response.PostBatchResponse;
+import com.myblog.response.PostExportResponse;
+import com.myblog.response.PostIngestResponse;
+import com.myblog.response.PostMultiResponse;
 import com.myblog.response.PostResponse;
-import jakarta.transaction.Transactional;
+import com.myblog.response.PostSummaryResponse;
+import com.myblog.search.PostSearchIndex;
+import com.myblog.storage.ContentCodec;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class PostService {
 
+    private static final int BATCH_SIZE = 500;
+    private static final int EXPORT_FLUSH_INTERVAL = 100;
+    private static final int MAX_MULTI_GET = 100;
+    private static final int STREAM_CHUNK_SIZE = 100;
+    private static final Map<String, String> INVALID_ITEM = Map.of("body", "不正なリクエストです。");
+    private static final Map<String, String> UNREADABLE_ITEM = Map.of("body", "JSON の形式が正しくないため、以降の項目は読み込めませんでした。");
+
     private final PostRepository postRepository;
+    private final RecentPostCache recentPostCache;
+    private final PostCounter postCounter;
+    private final PostSearchIndex postSearchIndex;
+    private final CacheManager cacheManager;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final PostIngestQueue postIngestQueue;
+    private final PostIdFilter postIdFilter;
+    private final PostWriter postWriter;
+    private final PrimaryStickiness primaryStickiness;
+
+    // キャッシュミスが同時に起きた場合の DB 読み込みを 1 回にまとめる
+    // 単件の読み込みは常に primary から読む (PrimaryReads) ので、振り分けをキーに含めなくてよい
+    private final SingleFlight<Long, PostResponse> postLoads = new SingleFlight<>();
+    private final SingleFlight<ListKey, List<PostSummaryResponse>> listLoads = new SingleFlight<>();
 
-    public void write(PostCreate postCreate) {
+    /**
+     * write-behind が有効ならキューに積んで受付結果を返し、無効なら同期で書き込んで empty を返す
+     */
+    public Optional<PostIngestResponse> write(PostCreate postCreate) {
         // postCreate -> Post Entity
         Post post = Post.builder()
                 .title(postCreate.getTitle())
                 .content(postCreate.getContent())
                 .build();
+
+        if (postIngestQueue.isEnabled()) {
+            return Optional.of(postIngestQueue.submit(post));
+        }
         postRepository.save(post);
+
+        PostSummaryResponse summary = new PostSummaryResponse(post);
+        AfterCommit.run(() -> {
+            postIdFilter.add(post.getId());
+            postCounter.add(1);
+            recentPostCache.add(summary);
+            postSearchIndex.index(post.getId(), post.getTitle(), post.getContent());
+        });
+        return Optional.empty();
     }
 
+    public PostIngestResponse getIngestStatus(String trackingId) {
+        return postIngestQueue.getStatus(trackingId)
+                .orElseThrow(IngestNotFound::new);
+    }
+
+    public PostBatchResponse writeAll(Iterator<PostCreate> postCreates) {
+        PostBatchResponse response = new PostBatchResponse();
+        List<Post> chunk = new ArrayList<>(BATCH_SIZE);
+        List<Integer> chunkIndexes = new ArrayList<>(BATCH_SIZE);
+
+        int index = 0;
+        while (true) {
+            PostCreate postCreate;
+            try {
+                if (!postCreates.hasNext()) {
+                    break;
+                }
+                postCreate = postCreates.next();
+            } catch (RuntimeJsonMappingException e) {
+                // 型の合わない項目 : その項目だけ失敗にし、次の項目から読み進める
+                response.addFailure(index++, INVALID_ITEM);
+                continue;
+            } catch (RuntimeException e) {
+                if (!(e.getCause() instanceof JsonProcessingException)) {
+                    throw e;
+                }
+                // JSON が壊れていて続きを読めない : 先のチャンクはコミット済みなので 400 にせず、ここまでの結果を返す
+                response.addFailure(index, UNREADABLE_ITEM);
+                break;
+            }
+            Map<String, String> validation = validate(postCreate);
+            if (validation.isEmpty()) {
+                chunk.add(Post.builder()
+                        .title(postCreate.getTitle())
+                        .content(postCreate.getContent())
+                        .build());
+                chunkIndexes.add(index);
+            } else {
+                response.addFailure(index, validation);
+            }
+            index++;
+
+            if (chunk.size() == BATCH_SIZE) {
+                writeChunk(chunk, chunkIndexes, response);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, chunkIndexes, response);
+        }
+        return response;
+    }
+
+    // チャンクごとにコミットするので、失敗しても先にコミットしたチャンクは残る : 500 にせず失敗した項目として返す
+    private void writeChunk(List<Post> chunk, List<Integer> chunkIndexes, PostBatchResponse response) {
+        try {
+            response.addCreated(postWriter.writeBatch(chunk).size());
+        } catch (DataAccessException e) {
+            log.warn("batch insert failed : items {}-{}", chunkIndexes.get(0), chunkIndexes.get(chunkIndexes.size() - 1), e);
+            chunkIndexes.forEach(i -> response.addFailure(i, Map.of("body", "保存に失敗しました。")));
+        }
+        chunk.clear();
+        chunkIndexes.clear();
+    }
+
+    private Map<String, String> validate(PostCreate postCreate) {
+        Map<String, String> validation = new HashMap<>();
+        if (postCreate == null) {
+            validation.putAll(INVALID_ITEM);
+            return validation;
+        }
+
+        for (ConstraintViolation<PostCreate> violation : validator.validate(postCreate)) {
+            validation.put(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+        if (validation.isEmpty()) {
+            try {
+                postCreate.validate();
+            } catch (InvalidRequest e) {
+                validation.putAll(e.getValidation());
+            }
+        }
+        return validation;
+    }
+
+    // 待つ側が接続を掴んだままにならないよう、トランザクションは repository 側で張る
+    @Cacheable(cacheNames = CacheConfig.POST, key = "#postId")
     public PostResponse getOnePost(Long postId) {
-        Post post = postRepository.findById(postId)
-                .orElseThrow(PostNotFound::new);
+        return loadPost(postId);
+    }
 
-        return PostResponse.builder()
-                .id(post.getId())
-                .title(post.getTitle())
-                .content(post.getContent())
-                .build();
+    @Cacheable(cacheNames = CacheConfig.POST_BODY, key = "#postId")
+    public PostBody getOnePostBody(Long postId) {
+        // 複数件取得は post キャッシュを見るので、単件取得で読んだ投稿も post キャッシュに入れる
+        Cache cache = cacheManager.getCache(CacheConfig.POST);
+        PostResponse post = cache.get(postId, PostResponse.class);
+        if (post == null) {
+            post = loadPost(postId);
+            cache.put(postId, post);
+        }
+        try {
+            // 単件取得の応答だけはタイトルを 10 文字に切り詰める (@Builder は切り詰めるコンストラクタを通る)
+            byte[] json = objectMapper.writeValueAsBytes(PostResponse.builder()
+                    .id(post.getId())
+                    .title(post.getTitle())
+                    .content(post.getContent())
+                    .html(post.getHtml())
+                    .version(post.getVersion())
+                    .updatedAt(post.getUpdatedAt())
+                    .build());
+            byte[] gzip = gzip(json);
+            return new PostBody(post.getVersion(), post.getUpdatedAt(), json, gzip.length < json.length ? gzip : null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private PostResponse loadPost(Long postId) {
+        requireExisting(postId);
+        return postLoads.execute(postId, () -> {
+            // post キャッシュは複数件取得と共有するので、タイトルは全文のまま持つ
+            return PrimaryReads.call(() -> postRepository.findById(postId))
+                    .map(PostResponse::new)
+                    .orElseThrow(() -> PostNotFound.INSTANCE);
+        });
+    }
+
+    /**
+     * キャッシュにある投稿はそのまま使い、残りを 1 回の IN クエリで読む
+     */
+    public PostMultiResponse getPosts(List<Long> postIds) {
+        List<Long> ids = postIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (ids.size() > MAX_MULTI_GET) {
+            throw new InvalidRequest("ids", "一度に取得できるのは" + MAX_MULTI_GET + "件までです。");
+        }
+
+        Cache cache = cacheManager.getCache(CacheConfig.POST);
+        Map<Long, PostResponse> found = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long id : ids) {
+            PostResponse cached = cache.get(id, PostResponse.class);
+            if (cached != null) {
+                found.put(id, cached);
+            } else if (!postIdFilter.isKnownAbsent(id)) {
+                misses.add(id);
+            }
+        }
+
+        // 読んだ結果はキャッシュに入れるので primary から読む
+        for (PostResponse post : PrimaryReads.call(() -> postRepository.getPosts(misses))) {
+            found.put(post.getId(), post);
+            cache.put(post.getId(), post);
+        }
+
+        List<PostResponse> posts = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            PostResponse post = found.get(id);
+            if (post != null) {
+                posts.add(post);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new PostMultiResponse(posts, missing);
+    }
+
+    @Transactional(readOnly = true)
+    public PostVersion getVersion(Long postId) {
+        // キャッシュ済みならDBに問い合わせない
+        PostBody body = cacheManager.getCache(CacheConfig.POST_BODY).get(postId, PostBody.class);
+        if (body != null) {
+            return new PostVersion(body.version(), body.updatedAt());
+        }
+        PostResponse cached = cacheManager.getCache(CacheConfig.POST).get(postId, PostResponse.class);
+        if (cached != null) {
+            return new PostVersion(cached.getVersion(), cached.getUpdatedAt());
+        }
+        requireExisting(postId);
+        // キャッシュを埋める読み込みと同じく primary から読み、304 の判定をキャッシュの内容より古くしない
+        return PrimaryReads.call(() -> postRepository.findVersion(postId))
+                .orElseThrow(() -> PostNotFound.INSTANCE);
+    }
+
+    public List<PostSummaryResponse> getList(PostSearch postSearch) {
+        List<PostSummaryResponse> posts;
+        String source;
+        if (postSearch.isKeywordSearch()) {
+            posts = listLoads.execute(ListKey.of(postSearch, primaryStickiness.isSticky()), () -> {
+                List<Long> postIds = postSearchIndex.search(postSearch.getQ(), postSearch.getOffset(), postSearch.getLimit());
+                return postRepository.getSummaries(postIds);
+            });
+            source = "search";
+        } else if (recentPostCache.covers(postSearch)) {
+            posts = recentPostCache.getFirstPage(postSearch.getLimit());
+            source = "recent";
+        } else {
+            posts = listLoads.execute(ListKey.of(postSearch, primaryStickiness.isSticky()), () -> postRepository.getList(postSearch));
+            source = "db";
+        }
+
+        recordList(posts, source);
+        return posts;
     }
 
-    public List<PostResponse> getList(PostSearch postSearch) {
+    /**
+     * 大きなページ用 : STREAM_CHUNK_SIZE 行ずつ読み、JSON 配列として書き出す
+     * チャンクごとに短いトランザクションで読んで接続を返してから書くので、遅いクライアントが pool の接続を握り続けない
+     */
+    public void writeList(PostSearch postSearch, OutputStream out) throws IOException {
+        int limit = postSearch.getLimit();
+        int rows = 0;
+        long bytes = 0;
+        Long afterId = null;
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.writeStartArray();
+
+            while (rows < limit) {
+                int chunkSize = Math.min(STREAM_CHUNK_SIZE, limit - rows);
+                List<PostSummaryResponse> chunk = postRepository.getListChunk(postSearch, afterId, chunkSize);
+                for (PostSummaryResponse post : chunk) {
+                    // getter のリフレクションを通さずにフィールドを直接書く
+                    generator.writeStartObject();
+                    generator.writeNumberField("id", post.getId());
+                    generator.writeStringField("title", post.getTitle());
+                    generator.writeStringField("content", post.getContent());
+                    generator.writeEndObject();
+
+                    rows++;
+                    bytes += ContentCodec.utf8Length(post.getTitle()) + ContentCodec.utf8Length(post.getContent());
+                }
+                if (chunk.size() < chunkSize) {
+                    break;
+                }
+                afterId = chunk.get(chunk.size() - 1).getId();
+            }
+            generator.writeEndArray();
+        }
+        recordList(rows, bytes, "stream");
+    }
 
-        // Post -> PostResponse
-        return postRepository.getList(postSearch).stream()
-                .map(PostResponse::new)
-                .collect(Collectors.toList());
+    public long getTotalCount() {
+        return postCounter.get();
+    }
+
+    private void recordList(List<PostSummaryResponse> posts, String source) {
+        long bytes = 0;
+        for (PostSummaryResponse post : posts) {
+            bytes += ContentCodec.utf8Length(post.getTitle()) + ContentCodec.utf8Length(post.getContent());
+        }
+        recordList(posts.size(), bytes, source);
+    }
+
+    private void recordList(int rows, long bytes, String source) {
+        meterRegistry.summary("myblog.posts.list.rows", "source", source).record(rows);
+        meterRegistry.summary("myblog.posts.list.bytes", "source", source).record(bytes);
+    }
+
+    @Transactional(readOnly = true)
+    public void export(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        try (Stream<PostExportResponse> posts = postRepository.streamAll();
+             JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+
+            int count = 0;
+            Iterator<PostExportResponse> iterator = posts.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+                if (++count % EXPORT_FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+        }
     }
 
     @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.POST, CacheConfig.POST_BODY}, key = "#postId")
     public void edit(Long postId, PostEdit postEdit) {
-        Post post = postRepository.findById(postId)
-                .orElseThrow(PostNotFound::new);
-
-        PostEditor.PostEditorBuilder editorBuilder = post.toEditor();
-        PostEditor postEditor = editorBuilder.title(postEdit.getTitle())
+        requireExisting(postId);
+        PostEditor postEditor = PostEditor.builder()
+                .title(postEdit.getTitle())
                 .content(postEdit.getContent())
                 .build();
 
-        post.edit(postEditor);
+        Instant updatedAt = Post.now();
+        if (postRepository.updatePost(postId, postEditor, postEdit.getVersion(), updatedAt) == 0) {
+            if (postEdit.getVersion() != null && postRepository.existsById(postId)) {
+                throw new PostConflict();
+            }
+            throw PostNotFound.INSTANCE;
+        }
+
+        String excerpt = postEditor.getRendered().excerpt();
+        AfterCommit.run(() -> {
+            recentPostCache.edit(postId, postEditor.getTitle(), excerpt, updatedAt);
+            postSearchIndex.index(postId, postEditor.getTitle(), postEditor.getContent());
+        });
     }
 
+    @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.POST, CacheConfig.POST_BODY}, key = "#postId")
     public void delete(Long postId) {
-        Post post = postRepository.findById(postId)
-                .orElseThrow(PostNotFound::new);
+        requireExisting(postId);
+        if (postRepository.deletePost(postId) == 0) {
+            throw PostNotFound.INSTANCE;
+        }
+
+        AfterCommit.run(() -> {
+            postIdFilter.remove(postId);
+            postCounter.add(-1);
+            recentPostCache.remove(postId);
+            postSearchIndex.remove(postId);
+        });
+    }
+
+    // 存在しないことが確実な id は DB に問い合わせずに 404 にする
+    private void requireExisting(Long postId) {
+        if (postIdFilter.isKnownAbsent(postId)) {
+            throw PostNotFound.INSTANCE;
+        }
+    }
+
+    // primary に固定されたリクエストがレプリカを読む他人の読み込みに相乗りしないよう、振り分け先もキーに含める
+    private record ListKey(String q, String after, long offset, int limit, boolean primary) {
+
+        static ListKey of(PostSearch postSearch, boolean primary) {
+            return new ListKey(postSearch.isKeywordSearch() ? postSearch.getQ() : null,
+                    postSearch.isCursorMode() ? postSearch.getAfter() : null,
+                    postSearch.isCursorMode() ? 0 : postSearch.getOffset(),
+                    postSearch.getLimit(),
+                    primary);
+        }
+    }
 
-        postRepository.delete(post);
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
     }
 }
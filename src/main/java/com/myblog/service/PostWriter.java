@@ -0,0 +1,52 @@
+package com.myblog.service;
+
+import com.myblog.cache.PostCounter;
+import com.myblog.cache.PostIdFilter;
+import com.myblog.cache.RecentPostCache;
+import com.myblog.domain.Post;
+import com.myblog.repository.PostRepository;
+import com.myblog.response.PostSummaryResponse;
+import com.myblog.search.PostSearchIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 検証済みの投稿のまとめて INSERT
+ * まとめて投稿 (PostService) と write-behind キュー (PostIngestQueue) の両方から使う
+ */
+@Component
+@RequiredArgsConstructor
+public class PostWriter {
+
+    private final PostRepository postRepository;
+    private final RecentPostCache recentPostCache;
+    private final PostCounter postCounter;
+    private final PostSearchIndex postSearchIndex;
+    private final PostIdFilter postIdFilter;
+
+    /**
+     * 1 トランザクションで INSERT し (失敗した場合は 1 件も残らない)、採番された id を同じ順で返す
+     */
+    public List<Long> writeBatch(List<Post> posts) {
+        List<Post> chunk = List.copyOf(posts);
+        List<Long> ids = postRepository.insertAll(chunk);
+
+        List<PostSummaryResponse> summaries = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Post post = chunk.get(i);
+            summaries.add(new PostSummaryResponse(ids.get(i), post.getTitle(), post.getExcerpt(), post.getUpdatedAt()));
+        }
+        AfterCommit.run(() -> {
+            ids.forEach(postIdFilter::add);
+            postCounter.add(ids.size());
+            summaries.forEach(recentPostCache::add);
+            for (int i = 0; i < ids.size(); i++) {
+                postSearchIndex.index(ids.get(i), chunk.get(i).getTitle(), chunk.get(i).getContent());
+            }
+        });
+        return ids;
+    }
+}
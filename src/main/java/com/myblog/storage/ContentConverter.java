@@ -0,0 +1,61 @@
+package com.myblog.storage;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.AttributeConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 投稿本文を {@link ContentCodec} の形式で保存する (reactive 版も同じ形式を読み書きする)
+ */
+@Component
+public class ContentConverter implements AttributeConverter<String, String> {
+
+    public static final String MARKER = ContentCodec.MARKER;
+
+    private final int threshold;
+
+    private final Timer compressTimer;
+    private final Timer decompressTimer;
+    // 保存サイズ / 元の UTF-8 サイズ
+    private final DistributionSummary ratio;
+
+    public ContentConverter(MeterRegistry meterRegistry,
+                            @Value("${myblog.content.compress-threshold:1024}") int threshold) {
+        this.threshold = threshold;
+        this.compressTimer = meterRegistry.timer("myblog.content.codec", "operation", "compress");
+        this.decompressTimer = meterRegistry.timer("myblog.content.codec", "operation", "decompress");
+        this.ratio = meterRegistry.summary("myblog.content.compression.ratio");
+    }
+
+    @Override
+    public String convertToDatabaseColumn(String content) {
+        if (content == null || content.length() < threshold) {
+            return ContentCodec.encode(content, threshold);
+        }
+
+        long start = System.nanoTime();
+        String stored = ContentCodec.encode(content, threshold);
+        compressTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        // 圧縮が効かず平文のまま保存した本文は 1.0
+        ratio.record(ContentCodec.isDeflated(stored) ? (double) stored.length() / ContentCodec.utf8Length(content) : 1.0);
+        return stored;
+    }
+
+    @Override
+    public String convertToEntityAttribute(String stored) {
+        if (!ContentCodec.isDeflated(stored)) {
+            return ContentCodec.decode(stored);
+        }
+
+        long start = System.nanoTime();
+        String content = ContentCodec.decode(stored);
+        decompressTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return content;
+    }
+}
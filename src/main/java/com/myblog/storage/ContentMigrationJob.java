@@ -0,0 +1,102 @@
+package com.myblog.storage;
+
+import com.myblog.domain.Post;
+import com.myblog.domain.PostExcerpt;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * 圧縮導入前に保存された閾値以上の本文を、少しずつ圧縮形式に書き換える
+ * 本文の内容は変わらないのでバージョンは上げず、途中で編集された行は次の機会に回す
+ * 書き換えた行は (圧縮が効かない本文も) 先頭が \u0001 になるので、再起動後は未変換の行の最小 id から再開する
+ */
+@Slf4j
+@Component
+public class ContentMigrationJob {
+
+    private static final String CANDIDATE = "char_length(content) >= ? and left(content, 1) <> ?";
+    private static final String RESUME_SQL = "select min(id) from post where " + CANDIDATE;
+    private static final String SELECT_SQL = "select id, content, version from post"
+            + " where id > ? and " + CANDIDATE
+            + " order by id limit ?";
+    // 抜粋を埋めた行は一覧の表示が変わるので updated_at も進める (一覧の ETag は updated_at から作る)
+    // MySQL は SET を左から評価するので、excerpt を書き換える前に updated_at を判定する
+    private static final String UPDATE_SQL = "update post set"
+            + " updated_at = case when excerpt is null then ? else updated_at end,"
+            + " content = ?, excerpt = coalesce(excerpt, ?)"
+            + " where id = ? and version = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ContentConverter contentConverter;
+    private final boolean enabled;
+    private final int threshold;
+    private final int batchSize;
+    private final Counter migrated;
+
+    // 次に読む位置 : 起動後の最初の実行で決める (null)。最後まで進んだら止まる
+    private Long lastId;
+    private boolean done;
+
+    public ContentMigrationJob(JdbcTemplate jdbcTemplate,
+                               ContentConverter contentConverter,
+                               MeterRegistry meterRegistry,
+                               @Value("${myblog.content.migration.enabled:true}") boolean enabled,
+                               @Value("${myblog.content.compress-threshold:1024}") int threshold,
+                               @Value("${myblog.content.migration.batch-size:200}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.contentConverter = contentConverter;
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.batchSize = batchSize;
+        this.migrated = meterRegistry.counter("myblog.content.migration.rows");
+    }
+
+    @Scheduled(initialDelayString = "${myblog.content.migration.initial-delay:1m}",
+            fixedDelayString = "${myblog.content.migration.interval:10s}")
+    public void migrateBatch() {
+        if (!enabled || done) {
+            return;
+        }
+        if (lastId == null) {
+            Long first = jdbcTemplate.queryForObject(RESUME_SQL, Long.class, threshold, ContentConverter.MARKER);
+            if (first == null) {
+                done = true;
+                log.info("content migration finished : no rows to migrate");
+                return;
+            }
+            lastId = first - 1;
+        }
+
+        List<Row> rows = jdbcTemplate.query(SELECT_SQL,
+                (rs, rowNum) -> new Row(rs.getLong("id"), rs.getString("content"), rs.getLong("version")),
+                lastId, threshold, ContentConverter.MARKER, batchSize);
+
+        int updated = 0;
+        for (Row row : rows) {
+            // 閾値以上なので、圧縮が効かない本文も \u0001R 付きになり次の再開時の対象から外れる
+            String stored = contentConverter.convertToDatabaseColumn(row.content());
+            // 抜粋の無い行は本文の先頭で埋める (描画後の抜粋は PostRenderJob が上書きする)
+            updated += jdbcTemplate.update(UPDATE_SQL, LocalDateTime.ofInstant(Post.now(), ZoneOffset.UTC),
+                    stored, PostExcerpt.of(row.content()), row.id(), row.version());
+            lastId = row.id();
+        }
+        migrated.increment(updated);
+
+        if (rows.size() < batchSize) {
+            done = true;
+            log.info("content migration finished");
+        }
+    }
+
+    private record Row(long id, String content, long version) {
+    }
+}
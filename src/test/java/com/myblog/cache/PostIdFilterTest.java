@@ -0,0 +1,83 @@
+package com.myblog.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * post テーブルを id 列だけの H2 で代用する
+ */
+class PostIdFilterTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:post-id-filter;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("create table if not exists post (id bigint primary key)");
+        jdbcTemplate.update("delete from post");
+        LongStream.rangeClosed(1, 10).forEach(id -> jdbcTemplate.update("insert into post (id) values (?)", id));
+    }
+
+    @Test
+    @DisplayName("走査前の最大 id から safety-margin 以内の id は、走査に現れなくても存在しないと確定しない")
+    void test1() {
+        // given
+        jdbcTemplate.update("delete from post where id in (3, 8)");
+        PostIdFilter filter = new PostIdFilter(jdbcTemplate, new SimpleMeterRegistry(), 5, 1_000);
+
+        // when
+        filter.rebuild();
+
+        // then
+        assertTrue(filter.isKnownAbsent(3L));
+        // 8 は走査の後にコミットされる行かもしれない
+        assertFalse(filter.isKnownAbsent(8L));
+        assertFalse(filter.isKnownAbsent(9L));
+        assertFalse(filter.isKnownAbsent(11L));
+    }
+
+    @Test
+    @DisplayName("このインスタンスで削除した id は確定範囲の外でも、再構築後も存在しない")
+    void test2() {
+        // given
+        PostIdFilter filter = new PostIdFilter(jdbcTemplate, new SimpleMeterRegistry(), 5, 1_000);
+        filter.rebuild();
+
+        // when
+        jdbcTemplate.update("delete from post where id = 9");
+        filter.remove(9L);
+
+        // then
+        assertTrue(filter.isKnownAbsent(9L));
+        filter.rebuild();
+        assertTrue(filter.isKnownAbsent(9L));
+        assertFalse(filter.isKnownAbsent(10L));
+    }
+
+    @Test
+    @DisplayName("max-id を超える id は持たず、常に DB に問い合わせる")
+    void test3() {
+        // given
+        PostIdFilter filter = new PostIdFilter(jdbcTemplate, new SimpleMeterRegistry(), 0, 5);
+        filter.rebuild();
+
+        // when
+        filter.remove(Long.MAX_VALUE);
+        jdbcTemplate.update("delete from post where id = 7");
+        filter.remove(7L);
+
+        // then
+        assertFalse(filter.isKnownAbsent(4L));
+        assertFalse(filter.isKnownAbsent(7L));
+        assertFalse(filter.isKnownAbsent(Long.MAX_VALUE));
+    }
+}
@@ -0,0 +1,100 @@
+package com.myblog.cache;
+
+import com.myblog.exception.PostNotFound;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+
+    @Test
+    @DisplayName("同じキーの同時読み込みは1回だけ実行し、全員が同じ結果を受け取る")
+    void test1() throws Exception {
+        // given
+        int callers = 16;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+
+        // when
+        List<Future<String>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> singleFlight.execute(1L, () -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return "post 1";
+                })));
+            }
+            // 全員が実行中の読み込みに合流するまで待つ
+            Thread.sleep(200);
+            release.countDown();
+
+            // then
+            for (Future<String> result : results) {
+                assertEquals("post 1", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("別のキーの読み込みは互いに待たない")
+    void test2() throws Exception {
+        // given
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        // when
+        try {
+            Future<String> first = executor.submit(() -> singleFlight.execute(1L, () -> {
+                bothStarted.countDown();
+                await(bothStarted);
+                return "post 1";
+            }));
+            Future<String> second = executor.submit(() -> singleFlight.execute(2L, () -> {
+                bothStarted.countDown();
+                await(bothStarted);
+                return "post 2";
+            }));
+
+            // then
+            assertEquals("post 1", first.get(5, TimeUnit.SECONDS));
+            assertEquals("post 2", second.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("失敗した読み込みは例外をそのまま投げ、次の呼び出しは再実行する")
+    void test3() {
+        // expected
+        assertThrows(PostNotFound.class, () -> singleFlight.execute(1L, () -> {
+            throw new PostNotFound();
+        }));
+        assertEquals("post 1", singleFlight.execute(1L, () -> "post 1"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,10 +1,17 @@
 package com.myblog.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myblog.cache.PostCounter;
+import com.myblog.cache.PostIdFilter;
+import com.myblog.cache.RecentPostCache;
+import com.myblog.config.CacheConfig;
 import com.myblog.domain.Post;
 import com.myblog.repository.PostRepository;
 import com.myblog.request.PostCreate;
+import com.myblog.request.PostCursor;
 import com.myblog.request.PostEdit;
+import com.myblog.search.PostSearchIndex;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
@@ -14,13 +21,22 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPInputStream;
 
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -37,6 +53,24 @@ class PostControllerTest {
     @Autowired
     private PostRepository postRepository;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private RecentPostCache recentPostCache;
+
+    @Autowired
+    private PostCounter postCounter;
+
+    @Autowired
+    private PostIdFilter postIdFilter;
+
+    @Autowired
+    private PostSearchIndex postSearchIndex;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @PersistenceContext
     private EntityManager em;
     @Autowired
@@ -47,6 +81,12 @@ class PostControllerTest {
     void clean() {
         postRepository.deleteAll();
         em.createNativeQuery("ALTER TABLE post AUTO_INCREMENT = 1").executeUpdate();
+        cacheManager.getCacheNames()
+                .forEach(name -> cacheManager.getCache(name).clear());
+        recentPostCache.clear();
+        postCounter.clear();
+        postIdFilter.clear();
+        postSearchIndex.clear();
     }
 
     @Test
@@ -278,4 +318,459 @@ class PostControllerTest {
                 .andExpect(status().isBadRequest())
                 .andDo(print());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("カーソルを指定すると続きのページが取得される")
+    void test12() throws Exception {
+        // given
+        List<Post> requestPosts = IntStream.range(0, 20)
+                .mapToObj(i-> {
+                    return Post.builder()
+                            .title("blog title " + i)
+                            .content("blog content " + i)
+                            .build();
+                })
+                .toList();
+        postRepository.saveAll(requestPosts);
+
+        String cursor = mockMvc.perform(get("/posts?size=10")
+                        .contentType(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(PostController.NEXT_CURSOR_HEADER))
+                .andReturn()
+                .getResponse()
+                .getHeader(PostController.NEXT_CURSOR_HEADER);
+
+        // expected
+        mockMvc.perform(get("/posts?after={after}&size=10", cursor)
+                        .contentType(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(10)))
+                .andExpect(jsonPath("$[0].title", is("blog title 9")))
+                .andDo(print());
+    }
+
+    @Test
+    @DisplayName("不正なカーソルは400になる")
+    void test13() throws Exception {
+        // expected
+        mockMvc.perform(get("/posts?after=invalid&size=10")
+                        .contentType(APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.validation.after").value("不正なカーソルです。"))
+                .andDo(print());
+    }
+
+    @Test
+    @DisplayName("ETagが一致すれば304を返す")
+    void test14() throws Exception {
+        // given
+        Post post = Post.builder()
+                .title("blog title")
+                .content("blog content")
+                .build();
+        postRepository.save(post);
+
+        String etag = mockMvc.perform(get("/posts/{postId}", post.getId())
+                        .contentType(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        // expected
+        mockMvc.perform(get("/posts/{postId}", post.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .contentType(APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(content().string(""))
+                .andDo(print());
+    }
+
+    @Test
+    @DisplayName("複数件をまとめて投稿し、不正な項目だけ失敗として返す")
+    void test15() throws Exception {
+        // given
+        List<PostCreate> request = List.of(
+                PostCreate.builder().title("title 1").content("content 1").build(),
+                PostCreate.builder().content("content 2").build(),
+                PostCreate.builder().title("title 3").content("content 3").build());
+
+        // expected
+        mockMvc.perform(post("/posts/batch")
+                        .contentType(APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.failures.1.title").value("タイトルを入力してください。"))
+                .andDo(print());
+
+        assertEquals(2L, postRepository.count());
+    }
+
+    @Test
+    @DisplayName("NDJSONで複数件をまとめて投稿")
+    void test16() throws Exception {
+        // given
+        String ndjson = objectMapper.writeValueAsString(PostCreate.builder().title("title 1").content("content 1").build())
+                + "\n"
+                + objectMapper.writeValueAsString(PostCreate.builder().title("title 2").content("content 2").build())
+                + "\n";
+
+        // expected
+        mockMvc.perform(post("/posts/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2))
+                .andDo(print());
+    }
+
+    @Test
+    @DisplayName("全投稿をNDJSONでエクスポート")
+    void test17() throws Exception {
+        // given
+        List<Post> requestPosts = IntStream.range(0, 3)
+                .mapToObj(i-> {
+                    return Post.builder()
+                            .title("blog title " + i)
+                            .content("blog content " + i)
+                            .build();
+                })
+                .toList();
+        postRepository.saveAll(requestPosts);
+
+        // when
+        String body = mockMvc.perform(get("/posts/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+
+        // then
+        String[] lines = body.split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("blog title 0", objectMapper.readTree(lines[0]).get("title").asText());
+    }
+
+    @Test
+    @DisplayName("存在しない投稿へのリクエストはエラーとして計測される")
+    void test18() throws Exception {
+        // given
+        double before = meterRegistry.counter("myblog.errors", "exception", "PostNotFound", "status", "404").count();
+
+        // when
+        mockMvc.perform(get("/posts/{postId}", 1L)
+                        .contentType(APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+
+        // then
+        assertEquals(before + 1, meterRegistry.counter("myblog.errors", "exception", "PostNotFound", "status", "404").count());
+    }
+
+    @Test
+    @DisplayName("If-Matchのバージョンが古ければ409を返す")
+    void test19() throws Exception {
+        // given
+        Post post = Post.builder()
+                .title("blog title")
+                .content("blog content")
+                .build();
+        postRepository.save(post);
+
+        String etag = mockMvc.perform(get("/posts/{postId}", post.getId())
+                        .contentType(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        PostEdit postEdit = PostEdit.builder()
+                .title("newTitle")
+                .content("blog content")
+                .build();
+
+        mockMvc.perform(patch("/posts/{postId}", post.getId())
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(postEdit)))
+                .andExpect(status().isOk());
+
+        // expected
+        mockMvc.perform(patch("/posts/{postId}", post.getId())
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(postEdit)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.code").value("409"))
+                .andDo(print());
+    }
+
+    @Test
+    @DisplayName("大きなページはチャンクごとに読んで書き出し、カーソルは返さない")
+    void test20() throws Exception {
+        // given
+        List<Post> requestPosts = IntStream.range(0, 250)
+                .mapToObj(i-> {
+                    return Post.builder()
+                            .title("blog title " + i)
+                            .content("blog content " + i)
+                            .build();
+                })
+                .toList();
+        postRepository.saveAll(requestPosts);
+
+        mockMvc.perform(get("/posts?size=200")
+                        .contentType(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(200)))
+                .andExpect(jsonPath("$[0].title", is("blog title 249")))
+                .andExpect(jsonPath("$[100].title", is("blog title 149")))
+                .andExpect(jsonPath("$[199].title", is("blog title 50")))
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(header().doesNotExist(PostController.NEXT_CURSOR_HEADER));
+
+        // expected : 続きは最後の要素の id から読む
+        String cursor = PostCursor.encode(requestPosts.get(50).getId());
+        mockMvc.perform(get("/posts?after={after}&size=200", cursor)
+                        .contentType(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(50)))
+                .andExpect(jsonPath("$[0].title", is("blog title 49")))
+                .andExpect(header().doesNotExist(PostController.NEXT_CURSOR_HEADER))
+                .andDo(print());
+    }
+
+    @Test
+    @DisplayName("gzipを受け付ける場合は圧縮済みの本文を返す")
+    void test21() throws Exception {
+        // given
+        String content = "blog content ".repeat(200);
+        Post post = Post.builder()
+                .title("blog title")
+                .content(content)
+                .build();
+        postRepository.save(post);
+
+        // when
+        byte[] body = mockMvc.perform(get("/posts/{postId}", post.getId())
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                // identity と gzip でバイト列が違うので強い ETag は使わない
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"" + post.getId() + "-0\""))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+
+        // then
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertEquals(content, objectMapper.readTree(gzip).get("content").asText());
+        }
+        assertNotNull(cacheManager.getCache(CacheConfig.POST_BODY).get(post.getId()));
+
+        mockMvc.perform(get("/posts/{postId}", post.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"" + post.getId() + "-0\""))
+                .andExpect(jsonPath("$.content").value(content));
+    }
+
+    @Test
+    @DisplayName("一覧に総件数と総ページ数を付ける")
+    void test22() throws Exception {
+        // given
+        List<Post> requestPosts = IntStream.range(0, 25)
+                .mapToObj(i-> {
+                    return Post.builder()
+                            .title("blog title " + i)
+                            .content("blog content " + i)
+                            .build();
+                })
+                .toList();
+        postRepository.saveAll(requestPosts);
+
+        // expected
+        mockMvc.perform(get("/posts?page=3&size=10")
+                        .contentType(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(5)))
+                .andExpect(header().string(PostController.TOTAL_COUNT_HEADER, "25"))
+                .andExpect(header().string(PostController.TOTAL_PAGES_HEADER, "3"))
+                .andDo(print());
+    }
+
+    @Test
+    @DisplayName("複数の投稿をリクエストした順に取得し、存在しない id を返す")
+    void test23() throws Exception {
+        // given
+        List<Post> requestPosts = IntStream.range(0, 3)
+                .mapToObj(i-> {
+                    return Post.builder()
+                            .title("blog title " + i)
+                            .content("blog content " + i)
+                            .build();
+                })
+                .toList();
+        postRepository.saveAll(requestPosts);
+        Long first = requestPosts.get(0).getId();
+        Long third = requestPosts.get(2).getId();
+        Long unknown = third + 100;
+
+        // expected
+        mockMvc.perform(get("/posts?ids={ids}", third + "," + unknown + "," + first)
+                        .contentType(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts.length()", is(2)))
+                .andExpect(jsonPath("$.posts[0].id").value(third))
+                .andExpect(jsonPath("$.posts[0].title").value("blog title 2"))
+                .andExpect(jsonPath("$.posts[1].id").value(first))
+                .andExpect(jsonPath("$.posts[1].title").value("blog title 0"))
+                .andExpect(jsonPath("$.missing.length()", is(1)))
+                .andExpect(jsonPath("$.missing[0]").value(unknown))
+                .andDo(print());
+    }
+
+    @Test
+    @DisplayName("描画済みの HTML を本文と一緒に返す")
+    void test24() throws Exception {
+        // given
+        Post post = Post.builder()
+                .title("blog title")
+                .content("## blog\n\n<b>content</b>")
+                .build();
+        postRepository.save(post);
+
+        // expected
+        mockMvc.perform(get("/posts/{postId}", post.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").value("## blog\n\n<b>content</b>"))
+                .andExpect(jsonPath("$.html").value("<h2>blog</h2>\n<p>&lt;b&gt;content&lt;/b&gt;</p>\n"))
+                .andDo(print());
+
+        mockMvc.perform(get("/posts?ids={ids}", post.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts[0].html").value("<h2>blog</h2>\n<p>&lt;b&gt;content&lt;/b&gt;</p>\n"))
+                .andDo(print());
+    }
+
+    @Test
+    @DisplayName("複数件取得の id が数値でない場合は ErrorResponse の 400")
+    void test25() throws Exception {
+        mockMvc.perform(get("/posts?ids=1,abc")
+                        .contentType(APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("400"))
+                .andExpect(jsonPath("$.message").value("不正なリクエストです。"))
+                .andExpect(jsonPath("$.validation.ids").value("idはカンマ区切りの数値で指定してください。"))
+                .andDo(print());
+    }
+
+    @Test
+    @DisplayName("複数件取得は 100 件を超える id を受け付けない")
+    void test26() throws Exception {
+        String ids = LongStream.rangeClosed(1, 101)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(","));
+
+        mockMvc.perform(get("/posts?ids={ids}", ids)
+                        .contentType(APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.validation.ids").value("一度に取得できるのは100件までです。"))
+                .andDo(print());
+    }
+
+    @Test
+    @DisplayName("複数件取得で重複した id は 1 件として返す")
+    void test27() throws Exception {
+        // given
+        Post post = Post.builder()
+                .title("blog title")
+                .content("blog content")
+                .build();
+        postRepository.save(post);
+        Long unknown = post.getId() + 100;
+
+        // expected
+        mockMvc.perform(get("/posts?ids={ids}", post.getId() + "," + unknown + "," + post.getId() + "," + unknown)
+                        .contentType(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts.length()", is(1)))
+                .andExpect(jsonPath("$.posts[0].id").value(post.getId()))
+                .andExpect(jsonPath("$.missing.length()", is(1)))
+                .andExpect(jsonPath("$.missing[0]").value(unknown))
+                .andDo(print());
+    }
+
+    @Test
+    @DisplayName("まとめて投稿する途中で型の合わない項目があっても、その項目だけ失敗として返す")
+    void test28() throws Exception {
+        // given
+        String json = "["
+                + objectMapper.writeValueAsString(PostCreate.builder().title("title 1").content("content 1").build())
+                + ",{\"title\":{\"text\":\"title 2\"},\"content\":\"content 2\"},"
+                + objectMapper.writeValueAsString(PostCreate.builder().title("title 3").content("content 3").build())
+                + "]";
+
+        // expected
+        mockMvc.perform(post("/posts/batch")
+                        .contentType(APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.failures.1.body").value("不正なリクエストです。"))
+                .andDo(print());
+
+        assertEquals(2L, postRepository.count());
+    }
+
+    @Test
+    @DisplayName("まとめて投稿する途中で JSON が壊れていたら、400 にせずそこまでの結果を返す")
+    void test29() throws Exception {
+        // given
+        String ndjson = objectMapper.writeValueAsString(PostCreate.builder().title("title 1").content("content 1").build())
+                + "\n"
+                + "{\"title\": \"title 2\", \"content\"";
+
+        // expected
+        mockMvc.perform(post("/posts/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.failures.1.body").value("JSON の形式が正しくないため、以降の項目は読み込めませんでした。"))
+                .andDo(print());
+
+        assertEquals(1L, postRepository.count());
+    }
+
+    @Test
+    @DisplayName("単件取得で読んだ投稿は複数件取得でもキャッシュから返す")
+    void test30() throws Exception {
+        // given
+        Post post = Post.builder()
+                .title("blog title 0")
+                .content("blog content")
+                .build();
+        postRepository.save(post);
+
+        mockMvc.perform(get("/posts/{postId}", post.getId()))
+                .andExpect(status().isOk());
+        assertNotNull(cacheManager.getCache(CacheConfig.POST).get(post.getId()));
+        postRepository.deleteAll();
+
+        // expected
+        mockMvc.perform(get("/posts?ids={ids}", post.getId())
+                        .contentType(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts.length()", is(1)))
+                .andExpect(jsonPath("$.posts[0].title").value("blog title 0"))
+                .andDo(print());
+    }
+}
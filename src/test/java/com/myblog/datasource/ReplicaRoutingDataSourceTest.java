@@ -0,0 +1,124 @@
+package com.myblog.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import jakarta.servlet.http.Cookie;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * primary とレプリカ 2 台を別々の H2 インスタンスで代用する
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(
+                node("primary"),
+                List.of(node("replica1"), node("replica2")),
+                new PrimaryStickiness(Duration.ofSeconds(5)));
+        routing.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("読み取り専用トランザクションはレプリカに振り分ける")
+    void test1() {
+        // when
+        Set<String> nodes = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            nodes.add(readOnly.execute(status -> currentNode()));
+        }
+
+        // then
+        assertEquals(Set.of("replica1", "replica2"), nodes);
+        assertEquals("primary", readWrite.execute(status -> currentNode()));
+    }
+
+    @Test
+    @DisplayName("書き込んだ後の読み込みは同じリクエスト内でも次のリクエストでも primary から読む")
+    void test2() {
+        // given
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        bindRequest(new MockHttpServletRequest(), response);
+
+        // when
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("update node set name = name"));
+
+        // then
+        assertEquals("primary", readOnly.execute(status -> currentNode()));
+        String setCookie = response.getHeader(HttpHeaders.SET_COOKIE);
+        assertNotNull(setCookie);
+        assertTrue(setCookie.startsWith(PrimaryStickiness.COOKIE + "="));
+
+        MockHttpServletRequest next = new MockHttpServletRequest();
+        next.setCookies(new Cookie(PrimaryStickiness.COOKIE, "1"));
+        bindRequest(next, new MockHttpServletResponse());
+        assertEquals("primary", readOnly.execute(status -> currentNode()));
+
+        bindRequest(new MockHttpServletRequest(), new MockHttpServletResponse());
+        assertNotEquals("primary", readOnly.execute(status -> currentNode()));
+    }
+
+    @Test
+    @DisplayName("キャッシュを埋める読み込みは読み取り専用トランザクションでも primary から読む")
+    void test3() {
+        // when
+        String node = readOnly.execute(status -> PrimaryReads.call(this::currentNode));
+
+        // then
+        assertEquals("primary", node);
+        assertNotEquals("primary", readOnly.execute(status -> currentNode()));
+    }
+
+    private String currentNode() {
+        return jdbcTemplate.queryForObject("select name from node", String.class);
+    }
+
+    private static void bindRequest(MockHttpServletRequest request, MockHttpServletResponse response) {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+    }
+
+    private static DataSource node(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists node (name varchar(20))");
+        jdbcTemplate.update("delete from node");
+        jdbcTemplate.update("insert into node (name) values (?)", name);
+        return dataSource;
+    }
+}
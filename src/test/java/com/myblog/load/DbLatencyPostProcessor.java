@@ -0,0 +1,49 @@
+package com.myblog.load;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.function.UnaryOperator;
+
+/**
+ * DataSource をラップし、クエリ実行のたびに接続を保持したまま一定時間待たせる (DB のレイテンシを模擬)
+ */
+public class DbLatencyPostProcessor implements BeanPostProcessor {
+
+    private final Duration latency;
+
+    public DbLatencyPostProcessor(Duration latency) {
+        this.latency = latency;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource) {
+            return proxy(DataSource.class, dataSource, "getConnection",
+                    connection -> proxy(Connection.class, (Connection) connection, "prepareStatement",
+                            statement -> proxy(PreparedStatement.class, (PreparedStatement) statement, null, null)));
+        }
+        return bean;
+    }
+
+    private <T> T proxy(Class<T> type, T target, String wrapMethod, UnaryOperator<Object> wrapper) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (type == PreparedStatement.class && method.getName().startsWith("execute")) {
+                Thread.sleep(latency.toMillis());
+            }
+            try {
+                Object result = method.invoke(target, args);
+                return method.getName().equals(wrapMethod) ? wrapper.apply(result) : result;
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+}
@@ -0,0 +1,75 @@
+package com.myblog.load;
+
+import com.myblog.MyblogApplication;
+import com.myblog.domain.Post;
+import com.myblog.repository.PostRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.myblog.load.ReadLoadScenario.*;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ./gradlew loadTest -PjavaVersion=21
+ * reactive 版は同じシナリオを ReactiveReadLoadTest で測る
+ */
+@Slf4j
+@Tag("load")
+@EnabledForJreRange(min = JRE.JAVA_21)
+class PostReadLoadTest {
+
+    @Test
+    @DisplayName("DBのレイテンシがある場合、virtual thread の方がスループットが高い")
+    void test1() throws Exception {
+        double platform = measure(false);
+        double virtual = measure(true);
+
+        log.info("GET /posts/:postId : platform threads = {} req/s, virtual threads = {} req/s",
+                String.format("%.1f", platform), String.format("%.1f", virtual));
+        assertTrue(virtual > platform);
+    }
+
+    private double measure(boolean virtualThreads) throws InterruptedException {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MyblogApplication.class)
+                .initializers(c -> c.getBeanFactory().addBeanPostProcessor(new DbLatencyPostProcessor(DB_LATENCY)))
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "server.tomcat.threads.max=" + PLATFORM_THREADS,
+                        "spring.datasource.url=jdbc:h2:mem:load-" + virtualThreads,
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.datasource.hikari.maximum-pool-size=" + CONCURRENCY,
+                        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.show-sql=false",
+                        // DB まで届くようにキャッシュは無効にする
+                        "spring.cache.type=none")
+                .run()) {
+
+            List<Long> postIds = context.getBean(PostRepository.class).saveAll(IntStream.range(0, POST_COUNT)
+                            .mapToObj(i -> Post.builder()
+                                    .title("load title " + i)
+                                    .content("load content " + i)
+                                    .build())
+                            .toList())
+                    .stream()
+                    .map(Post::getId)
+                    .toList();
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            return ReadLoadScenario.run(port, postIds);
+        }
+    }
+}
@@ -1,20 +1,41 @@
 package com.myblog.service;
 
+import com.myblog.cache.PostCounter;
+import com.myblog.cache.PostIdFilter;
+import com.myblog.cache.RecentPostCache;
 import com.myblog.domain.Post;
+import com.myblog.exception.PostConflict;
 import com.myblog.exception.PostNotFound;
+import com.myblog.ingest.PostIngestQueue;
+import com.myblog.render.PostRenderJob;
+import com.myblog.render.PostRenderer;
 import com.myblog.repository.PostRepository;
 import com.myblog.request.PostCreate;
 import com.myblog.request.PostEdit;
 import com.myblog.request.PostSearch;
+import com.myblog.response.PostBatchResponse;
+import com.myblog.response.PostIngestResponse;
 import com.myblog.response.PostResponse;
+import com.myblog.response.PostSummaryResponse;
+import com.myblog.search.PostSearchIndex;
+import com.myblog.storage.ContentConverter;
+import com.myblog.storage.ContentMigrationJob;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.List;
+import java.util.Random;
 import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -28,9 +49,45 @@ class PostServiceTest {
     @Autowired
     private PostRepository postRepository;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private RecentPostCache recentPostCache;
+
+    @Autowired
+    private PostCounter postCounter;
+
+    @Autowired
+    private PostIdFilter postIdFilter;
+
+    @Autowired
+    private PostSearchIndex postSearchIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PostRenderJob postRenderJob;
+
+    @Autowired
+    private PostWriter postWriter;
+
+    @Autowired
+    private ContentConverter contentConverter;
+
     @BeforeEach
     void clean() {
         postRepository.deleteAll();
+        cacheManager.getCacheNames()
+                .forEach(name -> cacheManager.getCache(name).clear());
+        recentPostCache.clear();
+        postCounter.clear();
+        postIdFilter.clear();
+        postSearchIndex.clear();
     }
 
     @Test
@@ -94,7 +151,7 @@ class PostServiceTest {
                 .build();
 
         // when
-        List<PostResponse> posts = postService.getList(postSearch);
+        List<PostSummaryResponse> posts = postService.getList(postSearch);
 
         // then
         assertEquals(10L, posts.size());
@@ -224,4 +281,409 @@ class PostServiceTest {
         });
 
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("投稿一覧の内容は抜粋のみ返す")
+    void test10() {
+        // given
+        Post post = Post.builder()
+                .title("blog title")
+                .content("a".repeat(1000))
+                .build();
+        postRepository.save(post);
+
+        PostSearch postSearch = PostSearch.builder()
+                .page(1)
+                .size(10)
+                .build();
+
+        // when
+        List<PostSummaryResponse> posts = postService.getList(postSearch);
+
+        // then
+        assertEquals(1L, posts.size());
+        assertEquals(Post.EXCERPT_LENGTH, posts.get(0).getContent().length());
+    }
+
+    @Test
+    @DisplayName("投稿の編集でキャッシュが破棄される")
+    void test11() {
+        // given
+        Post post = Post.builder()
+                .title("blog title")
+                .content("blog content")
+                .build();
+        postRepository.save(post);
+        postService.getOnePost(post.getId());
+
+        PostEdit postEdit = PostEdit.builder()
+                .title("newTitle")
+                .content("blog content")
+                .build();
+
+        // when
+        postService.edit(post.getId(), postEdit);
+
+        // then
+        assertEquals("newTitle", postService.getOnePost(post.getId()).getTitle());
+    }
+
+    @Test
+    @DisplayName("投稿すると最新一覧に反映される")
+    void test12() {
+        // given
+        PostSearch postSearch = PostSearch.builder()
+                .page(1)
+                .size(5)
+                .build();
+        postService.write(PostCreate.builder()
+                .title("first title")
+                .content("first content")
+                .build());
+        postService.getList(postSearch);
+
+        // when
+        postService.write(PostCreate.builder()
+                .title("second title")
+                .content("second content")
+                .build());
+        List<PostSummaryResponse> posts = postService.getList(postSearch);
+
+        // then
+        assertEquals(2L, posts.size());
+        assertEquals("second title", posts.get(0).getTitle());
+    }
+
+    @Test
+    @DisplayName("キーワードで投稿を検索する")
+    void test13() {
+        // given
+        postService.write(PostCreate.builder()
+                .title("Spring入門")
+                .content("依存性の注入について")
+                .build());
+        postService.write(PostCreate.builder()
+                .title("Vue入門")
+                .content("コンポーネントについて")
+                .build());
+
+        PostSearch postSearch = PostSearch.builder()
+                .q("spring 注入")
+                .build();
+
+        // when
+        List<PostSummaryResponse> posts = postService.getList(postSearch);
+
+        // then
+        assertEquals(1L, posts.size());
+        assertEquals("Spring入門", posts.get(0).getTitle());
+    }
+
+    @Test
+    @DisplayName("古いバージョンでの編集は競合として失敗する")
+    void test14() {
+        // given
+        Post post = Post.builder()
+                .title("blog title")
+                .content("blog content")
+                .build();
+        postRepository.save(post);
+        Long version = postService.getOnePost(post.getId()).getVersion();
+
+        postService.edit(post.getId(), PostEdit.builder()
+                .title("first")
+                .content("blog content")
+                .version(version)
+                .build());
+
+        // expected
+        assertThrows(PostConflict.class, () -> postService.edit(post.getId(), PostEdit.builder()
+                .title("second")
+                .content("blog content")
+                .version(version)
+                .build()));
+        assertEquals("first", postRepository.findById(post.getId()).get().getTitle());
+    }
+
+    @Test
+    @DisplayName("write-behind キューに積んだ投稿は停止時にすべて書き込まれる")
+    void test15() {
+        // given
+        PostIngestQueue queue = new PostIngestQueue(postWriter, new SimpleMeterRegistry(),
+                true, 100, 10, Duration.ofSeconds(1), 3, Duration.ofMillis(10));
+        queue.start();
+
+        List<PostIngestResponse> accepted = IntStream.range(0, 25)
+                .mapToObj(i -> queue.submit(Post.builder()
+                        .title("title " + i)
+                        .content("content " + i)
+                        .build()))
+                .toList();
+
+        // when
+        queue.stop();
+
+        // then
+        assertEquals(25L, postRepository.count());
+        PostIngestResponse status = queue.getStatus(accepted.get(0).getTrackingId()).get();
+        assertEquals(PostIngestResponse.Status.CREATED, status.getStatus());
+        assertEquals("title 0", postRepository.findById(status.getPostId()).get().getTitle());
+    }
+
+    @Test
+    @DisplayName("長い本文は圧縮して保存し、読み出し時に元に戻す")
+    void test16() {
+        // given
+        String content = "Spring Bootで始めるブログ開発。".repeat(200);
+        postService.write(PostCreate.builder()
+                .title("長い投稿")
+                .content(content)
+                .build());
+        Post post = postRepository.findAll().get(0);
+
+        // when
+        String stored = jdbcTemplate.queryForObject("select content from post where id = ?", String.class, post.getId());
+
+        // then
+        assertTrue(stored.startsWith(ContentConverter.MARKER));
+        assertTrue(stored.length() < content.length());
+        assertEquals(content, postService.getOnePost(post.getId()).getContent());
+    }
+
+    @Test
+    @DisplayName("投稿・削除で総件数が増減する")
+    void test17() {
+        // given
+        postService.write(PostCreate.builder()
+                .title("title 1")
+                .content("content 1")
+                .build());
+        postService.write(PostCreate.builder()
+                .title("title 2")
+                .content("content 2")
+                .build());
+        assertEquals(2L, postService.getTotalCount());
+
+        // when
+        postService.delete(postRepository.findAll().get(0).getId());
+
+        // then
+        assertEquals(1L, postService.getTotalCount());
+        assertEquals(postRepository.count(), postService.getTotalCount());
+    }
+
+    @Test
+    @DisplayName("削除済みの id はDBに問い合わせずに存在しない投稿として扱う")
+    void test18() {
+        // given
+        IntStream.range(0, 3).forEach(i -> postService.write(PostCreate.builder()
+                .title("title " + i)
+                .content("content " + i)
+                .build()));
+        postIdFilter.rebuild();
+
+        List<Long> ids = postRepository.findAll().stream()
+                .map(Post::getId)
+                .sorted()
+                .toList();
+        postService.delete(ids.get(1));
+        double before = meterRegistry.counter("myblog.posts.filter.rejected").count();
+
+        // expected
+        PostNotFound e = assertThrows(PostNotFound.class, () -> postService.getOnePost(ids.get(1)));
+        assertEquals(0, e.getStackTrace().length);
+        assertEquals(before + 1, meterRegistry.counter("myblog.posts.filter.rejected").count());
+        assertEquals("title 2", postService.getOnePost(ids.get(2)).getTitle());
+    }
+
+    @Test
+    @DisplayName("本文は書き込み時にサニタイズ済みの HTML に描画し、抜粋は記法を除いたテキストから作る")
+    void test19() {
+        // given
+        postService.write(PostCreate.builder()
+                .title("Markdown")
+                .content("# 見出し\n\n**強調**と<script>alert(1)</script>と[リンク](javascript:alert(1))")
+                .build());
+        Long postId = postRepository.findAll().get(0).getId();
+
+        // when
+        PostResponse post = postService.getOnePost(postId);
+
+        // then
+        assertTrue(post.getHtml().contains("<h1>見出し</h1>"));
+        assertTrue(post.getHtml().contains("<strong>強調</strong>"));
+        assertFalse(post.getHtml().contains("<script>"));
+        assertFalse(post.getHtml().contains("javascript:"));
+        assertEquals(PostRenderer.VERSION, postRepository.findById(postId).get().getRenderVersion());
+        assertFalse(postService.getList(PostSearch.builder().build()).get(0).getContent().contains("**"));
+
+        // when
+        postService.edit(postId, PostEdit.builder()
+                .title("Markdown")
+                .content("*編集*しました")
+                .build());
+
+        // then
+        assertEquals("<p><em>編集</em>しました</p>\n", postService.getOnePost(postId).getHtml());
+        assertEquals("編集しました", postService.getList(PostSearch.builder().build()).get(0).getContent());
+    }
+
+    @Test
+    @DisplayName("描画前の投稿は再描画ジョブが HTML と抜粋を埋め、バージョンと更新日時を進める")
+    void test20() {
+        // given
+        postService.write(PostCreate.builder()
+                .title("title")
+                .content("**content**")
+                .build());
+        Post post = postRepository.findAll().get(0);
+        jdbcTemplate.update("update post set html = null, render_version = null, excerpt = null,"
+                + " updated_at = '2000-01-01 00:00:00' where id = ?", post.getId());
+        cacheManager.getCacheNames()
+                .forEach(name -> cacheManager.getCache(name).clear());
+        assertNull(postService.getOnePost(post.getId()).getHtml());
+
+        // when
+        postRenderJob.renderBatch();
+
+        // then
+        PostResponse rendered = postService.getOnePost(post.getId());
+        assertEquals("<p><strong>content</strong></p>\n", rendered.getHtml());
+        assertEquals(post.getVersion() + 1, rendered.getVersion());
+        assertTrue(rendered.getUpdatedAt().isAfter(Instant.parse("2000-01-02T00:00:00Z")));
+        assertEquals("content", postService.getList(PostSearch.builder().build()).get(0).getContent());
+    }
+
+    @Test
+    @DisplayName("最新一覧への反映は id の降順の位置に入れ、すでにある id は重複させない")
+    void test21() {
+        // given
+        IntStream.range(0, 3).forEach(i -> postService.write(PostCreate.builder()
+                .title("title " + i)
+                .content("content " + i)
+                .build()));
+        PostSearch postSearch = PostSearch.builder()
+                .page(1)
+                .size(5)
+                .build();
+        postService.getList(postSearch);
+        List<Post> posts = postRepository.findAll().stream()
+                .sorted((a, b) -> Long.compare(a.getId(), b.getId()))
+                .toList();
+        recentPostCache.remove(posts.get(1).getId());
+
+        // when : 後からコミットされた古い id と、ロード済みの id が遅れて反映される
+        recentPostCache.add(new PostSummaryResponse(posts.get(1)));
+        recentPostCache.add(new PostSummaryResponse(posts.get(2)));
+
+        // then
+        List<PostSummaryResponse> window = postService.getList(postSearch);
+        assertEquals(List.of(posts.get(2).getId(), posts.get(1).getId(), posts.get(0).getId()),
+                window.stream().map(PostSummaryResponse::getId).toList());
+    }
+
+    @Test
+    @DisplayName("まとめて投稿で後のチャンクの保存に失敗しても、コミット済みのチャンクは作成数に数え、失敗したチャンクの項目を返す")
+    void test22() {
+        // given : 2 つ目のチャンク (500 件目以降) に列の長さを超えるタイトルを混ぜる
+        List<PostCreate> request = IntStream.range(0, 502)
+                .mapToObj(i -> PostCreate.builder()
+                        .title(i == 500 ? "t".repeat(1000) : "title " + i)
+                        .content("content " + i)
+                        .build())
+                .toList();
+
+        // when
+        PostBatchResponse response = postService.writeAll(request.iterator());
+
+        // then
+        assertEquals(500, response.getCreated());
+        assertEquals(List.of(500, 501), List.copyOf(response.getFailures().keySet()));
+        assertEquals("保存に失敗しました。", response.getFailures().get(501).get("body"));
+        assertEquals(500L, postRepository.count());
+    }
+
+    @Test
+    @DisplayName("write-behind のまとめての書き込みが失敗した場合は 1 件ずつ書き、不正な投稿だけを FAILED にする")
+    void test23() {
+        // given
+        PostIngestQueue queue = new PostIngestQueue(postWriter, new SimpleMeterRegistry(),
+                true, 100, 10, Duration.ofSeconds(1), 3, Duration.ofMillis(10));
+        queue.start();
+
+        List<PostIngestResponse> accepted = IntStream.range(0, 3)
+                .mapToObj(i -> queue.submit(Post.builder()
+                        .title(i == 1 ? "t".repeat(1000) : "title " + i)
+                        .content("content " + i)
+                        .build()))
+                .toList();
+
+        // when
+        queue.stop();
+
+        // then
+        assertEquals(2L, postRepository.count());
+        List<PostIngestResponse.Status> statuses = accepted.stream()
+                .map(response -> queue.getStatus(response.getTrackingId()).get().getStatus())
+                .toList();
+        assertEquals(List.of(PostIngestResponse.Status.CREATED, PostIngestResponse.Status.FAILED,
+                PostIngestResponse.Status.CREATED), statuses);
+    }
+
+    @Test
+    @DisplayName("1 文字の日本語で検索しても、その文字を含む投稿が見つかる")
+    void test24() {
+        // given
+        postService.write(PostCreate.builder()
+                .title("猫の写真")
+                .content("うちの子です")
+                .build());
+        postService.write(PostCreate.builder()
+                .title("犬の写真")
+                .content("散歩の途中")
+                .build());
+
+        // when
+        List<PostSummaryResponse> posts = postService.getList(PostSearch.builder()
+                .q("猫")
+                .build());
+
+        // then
+        assertEquals(1L, posts.size());
+        assertEquals("猫の写真", posts.get(0).getTitle());
+        assertEquals(2L, postService.getList(PostSearch.builder().q("写真").build()).size());
+    }
+
+    @Test
+    @DisplayName("圧縮導入前の本文を移行し、再起動後は移行済みの行 (圧縮の効かない本文も含む) を読み直さない")
+    void test25() {
+        // given : 圧縮の効く本文と、ランダムで圧縮の効かない本文を圧縮導入前の形式 (平文) に戻す
+        byte[] random = new byte[3000];
+        new Random(1).nextBytes(random);
+        String compressible = "Spring Bootで始めるブログ開発。".repeat(200);
+        String incompressible = Base64.getEncoder().encodeToString(random);
+        for (String content : List.of(compressible, incompressible)) {
+            postService.write(PostCreate.builder()
+                    .title("title")
+                    .content(content)
+                    .build());
+        }
+        jdbcTemplate.update("update post set content = case when content like ? then ? else ? end",
+                ContentConverter.MARKER + "D%", compressible, incompressible);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ContentMigrationJob job = new ContentMigrationJob(jdbcTemplate, contentConverter, registry, true, 1024, 10);
+
+        // when
+        job.migrateBatch();
+        ContentMigrationJob restarted = new ContentMigrationJob(jdbcTemplate, contentConverter, registry, true, 1024, 10);
+        restarted.migrateBatch();
+
+        // then
+        assertEquals(2.0, registry.counter("myblog.content.migration.rows").count());
+        List<String> stored = jdbcTemplate.queryForList("select content from post order by id", String.class);
+        assertTrue(stored.stream().allMatch(content -> content.startsWith(ContentConverter.MARKER)));
+        assertEquals(List.of(compressible, incompressible),
+                stored.stream().map(contentConverter::convertToEntityAttribute).toList());
+    }
+}